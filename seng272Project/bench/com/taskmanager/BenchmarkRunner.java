@@ -0,0 +1,146 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * Rough smoke-benchmark loop for the benchmarks in this folder: a number of
+ * warm-up iterations, then measured iterations, each reporting the average
+ * time and allocation per operation. It runs in the calling JVM without
+ * forking, and a volatile sink is its only guard against dead-code
+ * elimination, so the numbers are good for spotting large regressions
+ * between builds, not for comparing small differences. Use a proper harness
+ * such as JMH for that. Results are printed as a table and can be written
+ * as a JSON array with one object per result: benchmark, size, nsPerOp,
+ * error, bytesPerOp and the per-iteration nsPerOp values.
+ *
+ * Iteration counts come from -Dbench.warmup (default 3) and
+ * -Dbench.iterations (default 5).
+ */
+public class BenchmarkRunner {
+    // Consumes benchmark results so the JIT cannot drop the measured work
+    private static volatile long sink;
+
+    private final int warmupIterations = Integer.getInteger("bench.warmup", 3);
+    private final int measuredIterations = Integer.getInteger("bench.iterations", 5);
+    private final List<Result> results = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * One benchmark at one dataset size.
+     */
+    public static class Result {
+        final String benchmark;
+        final int size;
+        final double[] nanosPerOp;
+        final double bytesPerOp;
+
+        Result(String benchmark, int size, double[] nanosPerOp, double bytesPerOp) {
+            this.benchmark = benchmark;
+            this.size = size;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        double mean() {
+            double sum = 0;
+            for (double value : nanosPerOp) {
+                sum += value;
+            }
+            return sum / nanosPerOp.length;
+        }
+
+        // Half-width of a ~99.9% confidence interval, assuming normally distributed iterations
+        double error() {
+            if (nanosPerOp.length < 2) {
+                return Double.NaN;
+            }
+            double mean = mean();
+            double squares = 0;
+            for (double value : nanosPerOp) {
+                squares += (value - mean) * (value - mean);
+            }
+            double stddev = Math.sqrt(squares / (nanosPerOp.length - 1));
+            return 3.29 * stddev / Math.sqrt(nanosPerOp.length);
+        }
+    }
+
+    /**
+     * Measure a benchmark. Each invocation of the body is one iteration.
+     * @param benchmark Benchmark name
+     * @param size Dataset size, reported as the "size" parameter
+     * @param opsPerIteration Operations one invocation of the body performs
+     * @param body Work to measure; returns a checksum
+     * @return The recorded result
+     */
+    public Result measure(String benchmark, int size, long opsPerIteration, LongSupplier body) {
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += body.getAsLong();
+        }
+        long threadId = Thread.currentThread().getId();
+        double[] nanosPerOp = new double[measuredIterations];
+        long allocated = 0;
+        for (int i = 0; i < measuredIterations; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            sink += body.getAsLong();
+            nanosPerOp[i] = (double) (System.nanoTime() - start) / opsPerIteration;
+            allocated += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+        Result result = new Result(benchmark, size, nanosPerOp,
+                (double) allocated / measuredIterations / opsPerIteration);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-28s %10d %14.1f +- %-10.1f %12.0f%n", benchmark, size,
+                result.mean(), result.error(), result.bytesPerOp);
+        return result;
+    }
+
+    public void printHeader() {
+        System.out.printf(Locale.ROOT, "%-28s %10s %14s   %-10s %12s%n", "benchmark", "size", "ns/op", "error", "bytes/op");
+    }
+
+    /**
+     * Write all results so far as a JSON array.
+     * @param file Output file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                writer.printf(Locale.ROOT, "  {\"benchmark\": \"%s\", \"size\": %d, \"warmupIterations\": %d, "
+                                + "\"nsPerOp\": %s, \"error\": %s, \"bytesPerOp\": %s, \"iterations\": %s}%s%n",
+                        result.benchmark, result.size, warmupIterations,
+                        number(result.mean()), number(result.error()), number(result.bytesPerOp),
+                        rawData(result.nanosPerOp), i + 1 < results.size() ? "," : "");
+            }
+            writer.println("]");
+        }
+    }
+
+    private static String rawData(double[] values) {
+        String[] formatted = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            formatted[i] = number(values[i]);
+        }
+        return "[" + String.join(", ", Arrays.asList(formatted)) + "]";
+    }
+
+    // JSON has no NaN
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", value);
+    }
+}
@@ -0,0 +1,202 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rough smoke benchmark of the hot paths of command replay over synthetic datasets: record
+ * parsing and formatting, category and priority lookups, reminders,
+ * achievement checks and progress, and command execution through
+ * Main.processCommand.
+ * Run with:
+ *   java -cp out com.taskmanager.HotPathBenchmark [sizes] [--json file]
+ * where sizes is a comma separated list of task counts (default 1000,100000).
+ * 10M tasks need a heap of about 6 GB (-Xmx6g). See BenchmarkRunner for the
+ * iteration settings and the JSON format.
+ */
+public class HotPathBenchmark {
+    // Upper bound on the operations one iteration performs, so large datasets stay quick
+    private static final int MAX_OPS = 100_000;
+
+    public static void main(String[] args) throws IOException {
+        String sizes = "1000,100000";
+        File json = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--json") && i + 1 < args.length) {
+                json = new File(args[++i]);
+            } else {
+                sizes = args[i];
+            }
+        }
+        // Keep data in memory and diagnostics off, so only the measured code runs
+        System.setProperty("taskmanager.storage", "memory");
+        Log.setLevel(LogLevel.WARN);
+
+        BenchmarkRunner runner = new BenchmarkRunner();
+        runner.printHeader();
+        for (String size : sizes.split(",")) {
+            run(runner, Integer.parseInt(size.trim()));
+        }
+        if (json != null) {
+            runner.writeJson(json);
+            System.out.println("Results written to " + json.getPath());
+        }
+    }
+
+    private static void run(BenchmarkRunner runner, int size) throws IOException {
+        // Deadlines start a day ago, so reminders see a few overdue and upcoming tasks
+        List<Task> tasks = SnapshotBenchmark.syntheticTasks(size, LocalDateTime.now().minusDays(1));
+        String[] taskLines = new String[size];
+        for (int i = 0; i < size; i++) {
+            taskLines[i] = TaskManager.taskToString(tasks.get(i));
+        }
+        String[] wishLines = syntheticWishLines(Math.min(size, MAX_OPS));
+
+        runner.measure("parseTask", size, size, () -> {
+            long checksum = 0;
+            for (String line : taskLines) {
+                checksum += TaskManager.parseTask(line).getPoints();
+            }
+            return checksum;
+        });
+        runner.measure("taskToString", size, size, () -> {
+            long checksum = 0;
+            for (Task task : tasks) {
+                checksum += TaskManager.taskToString(task).length();
+            }
+            return checksum;
+        });
+        runner.measure("parseWish", size, wishLines.length, () -> {
+            long checksum = 0;
+            for (String line : wishLines) {
+                checksum += WishManager.parseWish(line).getId().length();
+            }
+            return checksum;
+        });
+
+        File dir = Files.createTempDirectory("hot-path-bench").toFile();
+        Family family = new Family(null, dir, Child::new);
+        TaskManager taskManager = family.getTaskManager();
+        taskManager.addTasks(tasks);
+
+        TaskCategory[] categories = TaskCategory.values();
+        runner.measure("getTasksByCategory", size, categories.length, () -> {
+            long checksum = 0;
+            for (TaskCategory category : categories) {
+                checksum += taskManager.getTasksByCategory(category).size();
+            }
+            return checksum;
+        });
+        TaskPriority[] priorities = TaskPriority.values();
+        runner.measure("getTasksByPriority", size, priorities.length, () -> {
+            long checksum = 0;
+            for (TaskPriority priority : priorities) {
+                checksum += taskManager.getTasksByPriority(priority).size();
+            }
+            return checksum;
+        });
+        ReminderSystem reminderSystem = family.getReminderSystem();
+        runner.measure("getTaskReminders", size, 100, () -> {
+            long checksum = 0;
+            for (int i = 0; i < 100; i++) {
+                checksum += reminderSystem.getTaskReminders(taskManager, 7).size();
+            }
+            return checksum;
+        });
+
+        // One rating per task, so the rating average covers the whole dataset
+        Child child = family.getChild();
+        for (int i = 0; i < size; i++) {
+            child.addRating(1 + i % 5);
+        }
+        child.addPoints(size);
+        AchievementManager achievementManager = family.getAchievementManager();
+        runner.measure("checkAchievements", size, 1000, () -> {
+            long checksum = 0;
+            for (int i = 0; i < 1000; i++) {
+                checksum += child.checkAchievements(achievementManager).size();
+            }
+            return checksum;
+        });
+        // A dashboard polling progress between changes
+        runner.measure("getAchievementProgress", size, 1000, () -> {
+            long checksum = 0;
+            for (int i = 0; i < 1000; i++) {
+                checksum += child.getAchievementProgress(achievementManager).size();
+            }
+            return checksum;
+        });
+
+        List<Command> commands = syntheticCommands(size);
+        Main.initialize(family);
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        runner.measure("processCommand", size, commands.size(), () -> {
+            // Command output is discarded; the table is printed after the iteration
+            System.setOut(discard);
+            try {
+                for (Command command : commands) {
+                    Main.processCommand(command, family);
+                }
+            } finally {
+                System.setOut(console);
+            }
+            return child.getPoints();
+        });
+
+        new File(dir, "Achievements.txt").delete();
+        dir.delete();
+    }
+
+    private static String[] syntheticWishLines(int count) {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 8, 0);
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            Wish wish = i % 2 == 0
+                    ? new Wish("W" + i, "Wish " + i, "Synthetic wish description " + i)
+                    : new Wish("W" + i, "Wish " + i, "Synthetic wish description " + i,
+                            base.plusHours(i), base.plusHours(i + 2L));
+            if (i % 3 == 0) {
+                wish.setApproved(true);
+                wish.setRequiredLevel(1 + i % 4);
+            }
+            lines[i] = WishManager.wishToString(wish);
+        }
+        return lines;
+    }
+
+    // A mix of the commands a replay runs most, spread over the dataset's task IDs
+    private static List<Command> syntheticCommands(int size) {
+        int count = Math.min(size, MAX_OPS);
+        List<Command> commands = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = (int) ((long) i * 7919 % size);
+            String line;
+            switch (i % 5) {
+                case 0:
+                    line = "TASK_DONE " + id;
+                    break;
+                case 1:
+                    line = "TASK_CHECKED " + id + " " + (1 + i % 5);
+                    break;
+                case 2:
+                    line = "ADD_BUDGET_COIN 1";
+                    break;
+                case 3:
+                    line = "PRINT_BUDGET";
+                    break;
+                default:
+                    line = "SHOW_ACHIEVEMENTS";
+                    break;
+            }
+            commands.add(Command.parse(line, i + 1, -1));
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,69 @@
+package com.taskmanager;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Compares the old regex based record parsing with RecordCodec.
+ * Run with: java -cp out com.taskmanager.RecordCodecBenchmark [lines]
+ */
+public class RecordCodecBenchmark {
+    private static final String QUOTE_AWARE_SPLIT = " (?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = "ADD_TASK2 T " + i + " \"Task number " + i + "\" \"Description with several words " + i
+                    + "\" 2025-03-05 10:00 2025-03-05 12:00 " + (i % 50) + " CATEGORY HOMEWORK PRIORITY HIGH";
+        }
+
+        // Warm up both paths before measuring
+        for (int round = 0; round < 3; round++) {
+            runRegex(lines);
+            runCodec(lines);
+        }
+
+        report("regex split + LocalDateTime.parse", lines, RecordCodecBenchmark::runRegex);
+        report("RecordCodec.split + parseDateTime", lines, RecordCodecBenchmark::runCodec);
+    }
+
+    private static long runRegex(String[] lines) {
+        long checksum = 0;
+        for (String line : lines) {
+            String[] parts = line.split(QUOTE_AWARE_SPLIT);
+            String title = parts[3].replace("\"", "");
+            LocalDateTime start = LocalDateTime.parse(parts[5] + "T" + parts[6], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            LocalDateTime end = LocalDateTime.parse(parts[7] + "T" + parts[8], DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            checksum += title.length() + start.getMinute() + end.getHour();
+        }
+        return checksum;
+    }
+
+    private static long runCodec(String[] lines) {
+        long checksum = 0;
+        for (String line : lines) {
+            String[] parts = RecordCodec.split(line);
+            LocalDateTime start = RecordCodec.parseDateTime(parts[5], parts[6]);
+            LocalDateTime end = RecordCodec.parseDateTime(parts[7], parts[8]);
+            checksum += parts[3].length() + start.getMinute() + end.getHour();
+        }
+        return checksum;
+    }
+
+    private static void report(String name, String[] lines, java.util.function.ToLongFunction<String[]> parser) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long checksum = parser.applyAsLong(lines);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-36s %8.1f ns/line %12.0f lines/s %8d bytes/line (checksum %d)%n",
+                name, (double) elapsed / lines.length, lines.length * 1e9 / elapsed,
+                allocated / lines.length, checksum);
+    }
+}
@@ -0,0 +1,122 @@
+package com.taskmanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares saving and loading tasks in the text format and in BinarySnapshot.
+ * Run with: java -cp out com.taskmanager.SnapshotBenchmark [tasks]
+ */
+public class SnapshotBenchmark {
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Task> tasks = syntheticTasks(count);
+        File dir = Files.createTempDirectory("snapshot-bench").toFile();
+        File text = new File(dir, "Task.txt");
+        File binary = new File(dir, "Task.bin");
+        checkRoundTrip(binary);
+
+        // Warm up both paths before measuring
+        for (int round = 0; round < 2; round++) {
+            writeText(text, tasks);
+            readText(text);
+            BinarySnapshot.writeTasks(binary, tasks);
+            BinarySnapshot.readTasks(binary);
+        }
+
+        long start = System.nanoTime();
+        writeText(text, tasks);
+        long textSave = System.nanoTime() - start;
+        start = System.nanoTime();
+        int textLoaded = readText(text).size();
+        long textLoad = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        BinarySnapshot.writeTasks(binary, tasks);
+        long binarySave = System.nanoTime() - start;
+        start = System.nanoTime();
+        int binaryLoaded = BinarySnapshot.readTasks(binary).size();
+        long binaryLoad = System.nanoTime() - start;
+
+        System.out.printf("%-8s %10s %10s %12s %8s%n", "format", "save ms", "load ms", "bytes", "tasks");
+        System.out.printf("%-8s %10d %10d %12d %8d%n", "text", textSave / 1_000_000, textLoad / 1_000_000, text.length(), textLoaded);
+        System.out.printf("%-8s %10d %10d %12d %8d%n", "binary", binarySave / 1_000_000, binaryLoad / 1_000_000, binary.length(), binaryLoaded);
+
+        text.delete();
+        binary.delete();
+        dir.delete();
+    }
+
+    // Fields at the edges of their range must come back unchanged
+    private static void checkRoundTrip(File binary) throws IOException {
+        int[] values = {Integer.MIN_VALUE, -256, -1, 0, 1, 5, 127, 128, 255, 256, Integer.MAX_VALUE};
+        List<Task> tasks = syntheticTasks(values.length);
+        for (int i = 0; i < values.length; i++) {
+            Task task = tasks.get(i);
+            task.setRating(values[i]);
+            task.setApproved(true);
+        }
+        BinarySnapshot.writeTasks(binary, tasks);
+        List<Task> loaded = BinarySnapshot.readTasks(binary);
+        for (int i = 0; i < values.length; i++) {
+            String expected = TaskManager.taskToString(tasks.get(i));
+            String actual = TaskManager.taskToString(loaded.get(i));
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Round trip changed " + expected + " to " + actual);
+            }
+        }
+    }
+
+    static List<Task> syntheticTasks(int count) {
+        return syntheticTasks(count, LocalDateTime.of(2025, 3, 1, 8, 0));
+    }
+
+    /**
+     * @param count Number of tasks
+     * @param base Deadline of the first task; each next one is due 7 minutes later
+     */
+    static List<Task> syntheticTasks(int count, LocalDateTime base) {
+        TaskCategory[] categories = TaskCategory.values();
+        TaskPriority[] priorities = TaskPriority.values();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime deadline = base.plusMinutes(i * 7L);
+            Task task = i % 3 == 0
+                    ? new Task(String.valueOf(i), i % 2 == 0 ? "T" : "F", "Task " + i, "Synthetic task description " + i,
+                            deadline, deadline.plusHours(2), i % 40, categories[i % categories.length], priorities[i % priorities.length])
+                    : new Task(String.valueOf(i), i % 2 == 0 ? "T" : "F", "Task " + i, "Synthetic task description " + i,
+                            deadline, i % 40, categories[i % categories.length], priorities[i % priorities.length]);
+            task.setCompleted(i % 4 == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void writeText(File file, List<Task> tasks) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            for (Task task : tasks) {
+                writer.println(TaskManager.taskToString(task));
+            }
+        }
+    }
+
+    private static List<Task> readText(File file) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Task task = TaskManager.parseTask(line);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,40 @@
+#!/bin/sh
+# Launch profile for short command batches.
+#
+#   ./run.sh [Commands file]            run like "java com.taskmanager.Main"
+#   JAVA_OPTS="-Dtaskmanager.checkpoint.commands=1000" ./run.sh big-batch.txt
+#
+# The first run compiles src/ into build/taskmanager.jar (AppCDS only archives
+# classes loaded from JARs) and records the classes it loads in an AppCDS
+# archive, build/taskmanager.jsa. Later runs map that archive instead of
+# loading and verifying the classes again. Both are rebuilt whenever the
+# sources change. Short batches also gain from C1-only
+# compilation and the serial collector, which this profile uses by default;
+# set JAVA_OPTS to replace them for long replays.
+# The startup time is logged at INFO, the default log level.
+set -e
+
+HERE=$(cd "$(dirname "$0")" && pwd)
+BUILD="$HERE/build"
+CLASSES="$BUILD/classes"
+JAR="$BUILD/taskmanager.jar"
+ARCHIVE="$BUILD/taskmanager.jsa"
+JAVA=${JAVA:-java}
+JAVA_OPTS=${JAVA_OPTS:--XX:TieredStopAtLevel=1 -XX:+UseSerialGC}
+
+if [ ! -f "$JAR" ] || [ -n "$(find "$HERE/src" -name '*.java' -newer "$JAR")" ]; then
+    rm -rf "$CLASSES" "$JAR" "$ARCHIVE"
+    mkdir -p "$CLASSES"
+    javac -encoding UTF-8 -d "$CLASSES" "$HERE"/src/com/taskmanager/*.java
+    jar --create --file "$JAR" -C "$CLASSES" .
+fi
+
+if [ -f "$ARCHIVE" ]; then
+    CDS="-XX:SharedArchiveFile=$ARCHIVE -Xshare:auto"
+else
+    # Dump the classes this run loads when it exits (JDK 13+)
+    CDS="-XX:ArchiveClassesAtExit=$ARCHIVE"
+fi
+
+# shellcheck disable=SC2086
+exec "$JAVA" $CDS $JAVA_OPTS -Dfile.encoding=UTF-8 -cp "$JAR" com.taskmanager.Main "$@"
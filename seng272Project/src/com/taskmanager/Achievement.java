@@ -10,6 +10,7 @@ public class Achievement {
     private AchievementType type;
     private int threshold;
     private boolean unlocked;
+    private AchievementRule rule;
     
     /**
      * Create a new achievement.
@@ -28,6 +29,19 @@ public class Achievement {
         this.threshold = threshold;
         this.unlocked = false;
     }
+
+    /**
+     * Create an achievement that is unlocked by a rule.
+     *
+     * @param id Unique identifier for the achievement
+     * @param name Name of the achievement
+     * @param description Description of how to earn the achievement
+     * @param rule Compiled rule; its threshold becomes the achievement's threshold
+     */
+    public Achievement(String id, String name, String description, AchievementRule rule) {
+        this(id, name, description, AchievementType.RULE, rule.getThreshold());
+        this.rule = rule;
+    }
     
     /**
      * Check if the achievement should be unlocked based on the provided value.
@@ -50,6 +64,7 @@ public class Achievement {
     public AchievementType getType() { return type; }
     public int getThreshold() { return threshold; }
     public boolean isUnlocked() { return unlocked; }
+    public AchievementRule getRule() { return rule; }
     
     // Setter for unlocked status (for loading from file)
     public void setUnlocked(boolean unlocked) { this.unlocked = unlocked; }
@@ -1,101 +1,168 @@
 package com.taskmanager;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Manages achievements and tracks progress towards unlocking them.
+ * Manages achievements and tracks progress towards unlocking them. Registered
+ * as a child's ProgressListener, it only checks the achievement types whose
+ * progress changed, and each check starts where the previous one stopped.
+ * RULE achievements are updated from each approved task or wish; see
+ * AchievementRule for the rule syntax.
  */
-public class AchievementManager {
+public class AchievementManager implements Persistable, ProgressListener {
+    private static final String READY = "ready, run CHECK_ACHIEVEMENTS to unlock";
+
     private List<Achievement> achievements;
-    private static final String ACHIEVEMENTS_FILE = "C:\\Java\\Yusuf Ali\\seng272Project\\Achievements.txt";
+    private Map<String, Achievement> achievementsById;
+    private final File file;
+    private boolean autoFlush = true;
+    private boolean dirty = false;
+    // Cached read-only list of unlocked achievements, rebuilt only after an unlock
+    private List<Achievement> unlockedView;
+    private final Map<AchievementType, ThresholdIndex> indexes = new EnumMap<>(AchievementType.class);
+    // Latest progress per type, and the types that changed since the last check
+    private final Map<AchievementType, Integer> progress = new EnumMap<>(AchievementType.class);
+    private final EnumSet<AchievementType> pending = EnumSet.noneOf(AchievementType.class);
+    // RULE achievements in file order, and whether one may have been met since the last check
+    private final List<Achievement> rules = new ArrayList<>();
+    private boolean rulesPending;
+    // Progress of the locked achievements; a missing type or null is recomputed on the next query
+    private final Map<AchievementType, List<AchievementProgress>> progressByType = new EnumMap<>(AchievementType.class);
+    private List<AchievementProgress> ruleProgress;
+    private List<AchievementProgress> progressView;
     
     public AchievementManager() {
+        this(new File(Settings.dataDir(), "Achievements.txt"));
+    }
+
+    /**
+     * Create an achievement manager that keeps its state in the given file.
+     * @param file Achievements file
+     */
+    public AchievementManager(File file) {
+        this.file = file;
         achievements = new ArrayList<>();
+        achievementsById = new HashMap<>();
+        boolean loaded = loadAchievements();
         initializeDefaultAchievements();
-        loadAchievements();
+        rebuildIndex();
+        if (!loaded) {
+            saveAchievements(); // Save default achievements
+        }
     }
     
     /**
-     * Initialize default achievements if none exist.
+     * Add the default achievements that the file did not define.
      */
     private void initializeDefaultAchievements() {
         // Task completion achievements
-        achievements.add(new Achievement("TC1", "Task Beginner", "Complete 5 tasks", AchievementType.TASK_COMPLETION, 5));
-        achievements.add(new Achievement("TC2", "Task Master", "Complete 20 tasks", AchievementType.TASK_COMPLETION, 20));
+        addDefault("TC1", "Task Beginner", "Complete 5 tasks", AchievementType.TASK_COMPLETION, 5);
+        addDefault("TC2", "Task Master", "Complete 20 tasks", AchievementType.TASK_COMPLETION, 20);
         
         // Points achievements
-        achievements.add(new Achievement("PE1", "Point Collector", "Earn 50 points", AchievementType.POINTS_EARNED, 50));
-        achievements.add(new Achievement("PE2", "Point Hoarder", "Earn 200 points", AchievementType.POINTS_EARNED, 200));
-        achievements.add(new Achievement("PE3", "Point Master", "Earn 500 points", AchievementType.POINTS_EARNED, 500));
+        addDefault("PE1", "Point Collector", "Earn 50 points", AchievementType.POINTS_EARNED, 50);
+        addDefault("PE2", "Point Hoarder", "Earn 200 points", AchievementType.POINTS_EARNED, 200);
+        addDefault("PE3", "Point Master", "Earn 500 points", AchievementType.POINTS_EARNED, 500);
         
         // Rating achievements
-        achievements.add(new Achievement("RE1", "Good Ratings", "Achieve an average rating of 3", AchievementType.RATING_EARNED, 3));
-        achievements.add(new Achievement("RE2", "Excellent Ratings", "Achieve an average rating of 5", AchievementType.RATING_EARNED, 5));
+        addDefault("RE1", "Good Ratings", "Achieve an average rating of 3", AchievementType.RATING_EARNED, 3);
+        addDefault("RE2", "Excellent Ratings", "Achieve an average rating of 5", AchievementType.RATING_EARNED, 5);
         
         // Level achievements
-        achievements.add(new Achievement("LR1", "Level Up", "Reach level 2", AchievementType.LEVEL_REACHED, 2));
-        achievements.add(new Achievement("LR2", "High Level", "Reach level 3", AchievementType.LEVEL_REACHED, 3));
-        achievements.add(new Achievement("LR3", "Max Level", "Reach level 4", AchievementType.LEVEL_REACHED, 4));
+        addDefault("LR1", "Level Up", "Reach level 2", AchievementType.LEVEL_REACHED, 2);
+        addDefault("LR2", "High Level", "Reach level 3", AchievementType.LEVEL_REACHED, 3);
+        addDefault("LR3", "Max Level", "Reach level 4", AchievementType.LEVEL_REACHED, 4);
         
         // Wish achievements
-        achievements.add(new Achievement("WA1", "Wish Granted", "Get a wish approved", AchievementType.WISH_APPROVED, 1));
-        achievements.add(new Achievement("WA2", "Dream Achiever", "Get 3 wishes approved", AchievementType.WISH_APPROVED, 3));
+        addDefault("WA1", "Wish Granted", "Get a wish approved", AchievementType.WISH_APPROVED, 1);
+        addDefault("WA2", "Dream Achiever", "Get 3 wishes approved", AchievementType.WISH_APPROVED, 3);
     }
     
+    private void addDefault(String id, String name, String description, AchievementType type, int threshold) {
+        if (!achievementsById.containsKey(id)) {
+            addAchievement(new Achievement(id, name, description, type, threshold));
+        }
+    }
+
+    private void addAchievement(Achievement achievement) {
+        achievements.add(achievement);
+        achievementsById.put(achievement.getId(), achievement);
+    }
+
     /**
      * Load achievements from file.
+     * @return false if the file did not exist and was created empty
      */
-    private void loadAchievements() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(ACHIEVEMENTS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    parseAchievement(line);
-                }
-            }
-            System.out.println("Loaded achievements from file.");
+    private boolean loadAchievements() {
+        try {
+            readAchievements(file);
+            Log.info("Loaded achievements from file.");
+            return true;
         } catch (IOException e) {
             System.err.println("Error loading achievements: " + e.getMessage());
             // Create the file if it doesn't exist
             try {
-                new File(ACHIEVEMENTS_FILE).createNewFile();
-                System.out.println("Created new Achievements.txt file.");
-                saveAchievements(); // Save default achievements
+                if (file.getParentFile() != null) {
+                    file.getParentFile().mkdirs();
+                }
+                file.createNewFile();
+                Log.info("Created new Achievements.txt file.");
             } catch (IOException ex) {
                 System.err.println("Error creating Achievements.txt file: " + ex.getMessage());
             }
+            return false;
         }
     }
     
+    private void readAchievements(File source) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(source))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    parseAchievement(line);
+                }
+            }
+        }
+    }
+
     /**
      * Parse an achievement from a line in the file.
      * @param line Line to parse
      */
     private void parseAchievement(String line) {
         try {
-            String[] parts = line.split(",");
+            String[] parts = RecordCodec.split(line, ',');
             if (parts.length >= 6) {
                 String id = parts[0];
                 String name = parts[1];
                 String description = parts[2];
                 AchievementType type = AchievementType.valueOf(parts[3]);
-                int threshold = Integer.parseInt(parts[4]);
                 boolean unlocked = Boolean.parseBoolean(parts[5]);
                 
-                // Check if this achievement already exists
-                for (Achievement achievement : achievements) {
-                    if (achievement.getId().equals(id)) {
-                        achievement.setUnlocked(unlocked);
-                        return;
-                    }
+                // A repeated ID only updates the unlocked flag
+                Achievement existing = achievementsById.get(id);
+                if (existing != null) {
+                    existing.setUnlocked(unlocked);
+                    return;
                 }
                 
-                // If not found, create a new one
-                Achievement achievement = new Achievement(id, name, description, type, threshold);
+                Achievement achievement = type == AchievementType.RULE
+                        ? new Achievement(id, name, description, AchievementRule.compile(parts[4]))
+                        : new Achievement(id, name, description, type, Integer.parseInt(parts[4]));
                 achievement.setUnlocked(unlocked);
-                achievements.add(achievement);
+                addAchievement(achievement);
             }
         } catch (Exception e) {
             System.err.println("Error parsing achievement: " + e.getMessage());
@@ -106,43 +173,214 @@ public class AchievementManager {
      * Save achievements to file.
      */
     private void saveAchievements() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ACHIEVEMENTS_FILE))) {
+        try {
+            writeAchievements(file);
+            Log.info("Successfully saved achievements to file.");
+        } catch (IOException e) {
+            System.err.println("Error saving achievements: " + e.getMessage());
+        }
+    }
+
+    private void writeAchievements(File target) throws IOException {
+        // Write to a temporary file first so a crash never leaves a truncated file
+        File temp = new File(target.getPath() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(temp)))) {
+            StringBuilder sb = new StringBuilder(128);
             for (Achievement achievement : achievements) {
-                writer.println(String.format("%s,%s,%s,%s,%d,%b",
-                        achievement.getId(),
-                        achievement.getName(),
-                        achievement.getDescription(),
-                        achievement.getType().name(),
-                        achievement.getThreshold(),
-                        achievement.isUnlocked()));
+                sb.setLength(0);
+                RecordCodec.appendField(sb, achievement.getId(), ',').append(',');
+                RecordCodec.appendField(sb, achievement.getName(), ',').append(',');
+                RecordCodec.appendField(sb, achievement.getDescription(), ',').append(',');
+                sb.append(achievement.getType().name()).append(',');
+                if (achievement.getRule() != null) {
+                    RecordCodec.appendField(sb, achievement.getRule().getExpression(), ',');
+                } else {
+                    sb.append(achievement.getThreshold());
+                }
+                sb.append(',').append(achievement.isUnlocked());
+                writer.println(sb);
+            }
+            if (writer.checkError()) {
+                throw new IOException("Error writing " + temp);
             }
-            System.out.println("Successfully saved achievements to file.");
+        }
+        Files.move(temp.toPath(), target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the current achievements to another file, e.g. a replay checkpoint.
+     * @param target File to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(File target) throws IOException {
+        writeAchievements(target);
+    }
+
+    /**
+     * Replace the current achievements with the ones in a file written by
+     * writeTo() and save them.
+     * @param source File to read
+     * @throws IOException if the file cannot be read
+     */
+    public void restoreFrom(File source) throws IOException {
+        List<Achievement> current = achievements;
+        Map<String, Achievement> currentById = achievementsById;
+        achievements = new ArrayList<>();
+        achievementsById = new HashMap<>();
+        try {
+            readAchievements(source);
         } catch (IOException e) {
-            System.err.println("Error saving achievements: " + e.getMessage());
+            achievements = current;
+            achievementsById = currentById;
+            throw e;
         }
+        initializeDefaultAchievements();
+        synchronized (this) {
+            rebuildIndex();
+            // Recheck the restored achievements against the latest progress
+            pending.addAll(progress.keySet());
+        }
+        unlockedView = null;
+        persist();
     }
     
     /**
-     * Check for task completion achievements.
-     * @param completedTasksCount Number of completed tasks
+     * Save now, or mark dirty while a group commit is collecting changes.
+     */
+    private void persist() {
+        if (autoFlush) {
+            saveAchievements();
+        } else {
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    @Override
+    public void flush() {
+        if (dirty) {
+            saveAchievements();
+            dirty = false;
+        }
+    }
+    
+    /**
+     * Record a new progress value. Achievements of that type are checked on
+     * the next checkPendingAchievements() call.
+     */
+    @Override
+    public synchronized void progressChanged(AchievementType type, int value) {
+        progress.put(type, value);
+        pending.add(type);
+        progressByType.remove(type);
+        if (type == AchievementType.POINTS_EARNED) {
+            // Level progress is shown in points
+            progressByType.remove(AchievementType.LEVEL_REACHED);
+        }
+        progressView = null;
+    }
+
+    /**
+     * Unlock achievements for the types whose progress changed since the last call.
      * @return List of newly unlocked achievements
      */
-    public List<Achievement> checkTaskCompletionAchievements(int completedTasksCount) {
+    public synchronized List<Achievement> checkPendingAchievements() {
+        if (pending.isEmpty() && !rulesPending) {
+            return Collections.emptyList();
+        }
         List<Achievement> unlockedAchievements = new ArrayList<>();
-        
-        for (Achievement achievement : achievements) {
-            if (achievement.getType() == AchievementType.TASK_COMPLETION) {
-                if (achievement.checkAndUnlock(completedTasksCount)) {
+        for (AchievementType type : pending) {
+            indexes.get(type).unlockUpTo(progress.get(type), unlockedAchievements);
+        }
+        pending.clear();
+        if (rulesPending) {
+            for (Achievement achievement : rules) {
+                if (achievement.checkAndUnlock(achievement.getRule().getProgress())) {
                     unlockedAchievements.add(achievement);
                 }
             }
+            rulesPending = false;
         }
-        
-        if (!unlockedAchievements.isEmpty()) {
-            saveAchievements();
+        return unlocked(unlockedAchievements);
+    }
+
+    /**
+     * Update the rules with an approved task. Met rules unlock on the next
+     * checkPendingAchievements() call.
+     */
+    @Override
+    public synchronized void taskApproved(Task task) {
+        for (Achievement achievement : rules) {
+            if (!achievement.isUnlocked() && achievement.getRule().taskApproved(task)) {
+                ruleCounted(achievement.getRule());
+            }
         }
-        
-        return unlockedAchievements;
+    }
+
+    /**
+     * Update the rules with an approved wish.
+     */
+    @Override
+    public synchronized void wishApproved(Wish wish) {
+        for (Achievement achievement : rules) {
+            if (!achievement.isUnlocked() && achievement.getRule().wishApproved(wish)) {
+                ruleCounted(achievement.getRule());
+            }
+        }
+    }
+
+    private void ruleCounted(AchievementRule rule) {
+        if (rule.isMet()) {
+            rulesPending = true;
+        }
+        ruleProgress = null;
+        progressView = null;
+    }
+
+    /**
+     * @return true if any achievement is defined by a rule
+     */
+    public synchronized boolean hasRules() {
+        return !rules.isEmpty();
+    }
+
+    /**
+     * Recompute the rules' totals from the approved tasks and wishes, e.g.
+     * after loading or restoring. Only needed once; later approvals arrive as
+     * taskApproved() and wishApproved() calls.
+     * @param tasks All tasks
+     * @param wishes All wishes
+     */
+    public synchronized void replayHistory(Collection<Task> tasks, Collection<Wish> wishes) {
+        for (Achievement achievement : rules) {
+            achievement.getRule().reset();
+        }
+        ruleProgress = null;
+        progressView = null;
+        for (Task task : tasks) {
+            if (task.isApproved()) {
+                taskApproved(task);
+            }
+        }
+        for (Wish wish : wishes) {
+            if (wish.isApproved()) {
+                wishApproved(wish);
+            }
+        }
+    }
+
+    /**
+     * Check for task completion achievements.
+     * @param completedTasksCount Number of completed tasks
+     * @return List of newly unlocked achievements
+     */
+    public List<Achievement> checkTaskCompletionAchievements(int completedTasksCount) {
+        return check(AchievementType.TASK_COMPLETION, completedTasksCount);
     }
     
     /**
@@ -151,21 +389,7 @@ public class AchievementManager {
      * @return List of newly unlocked achievements
      */
     public List<Achievement> checkPointsAchievements(int points) {
-        List<Achievement> unlockedAchievements = new ArrayList<>();
-        
-        for (Achievement achievement : achievements) {
-            if (achievement.getType() == AchievementType.POINTS_EARNED) {
-                if (achievement.checkAndUnlock(points)) {
-                    unlockedAchievements.add(achievement);
-                }
-            }
-        }
-        
-        if (!unlockedAchievements.isEmpty()) {
-            saveAchievements();
-        }
-        
-        return unlockedAchievements;
+        return check(AchievementType.POINTS_EARNED, points);
     }
     
     /**
@@ -174,21 +398,7 @@ public class AchievementManager {
      * @return List of newly unlocked achievements
      */
     public List<Achievement> checkRatingAchievements(double averageRating) {
-        List<Achievement> unlockedAchievements = new ArrayList<>();
-        
-        for (Achievement achievement : achievements) {
-            if (achievement.getType() == AchievementType.RATING_EARNED) {
-                if (achievement.checkAndUnlock((int)Math.round(averageRating))) {
-                    unlockedAchievements.add(achievement);
-                }
-            }
-        }
-        
-        if (!unlockedAchievements.isEmpty()) {
-            saveAchievements();
-        }
-        
-        return unlockedAchievements;
+        return check(AchievementType.RATING_EARNED, (int)Math.round(averageRating));
     }
     
     /**
@@ -197,21 +407,7 @@ public class AchievementManager {
      * @return List of newly unlocked achievements
      */
     public List<Achievement> checkLevelAchievements(int level) {
-        List<Achievement> unlockedAchievements = new ArrayList<>();
-        
-        for (Achievement achievement : achievements) {
-            if (achievement.getType() == AchievementType.LEVEL_REACHED) {
-                if (achievement.checkAndUnlock(level)) {
-                    unlockedAchievements.add(achievement);
-                }
-            }
-        }
-        
-        if (!unlockedAchievements.isEmpty()) {
-            saveAchievements();
-        }
-        
-        return unlockedAchievements;
+        return check(AchievementType.LEVEL_REACHED, level);
     }
     
     /**
@@ -220,45 +416,243 @@ public class AchievementManager {
      * @return List of newly unlocked achievements
      */
     public List<Achievement> checkWishAchievements(int approvedWishesCount) {
+        return check(AchievementType.WISH_APPROVED, approvedWishesCount);
+    }
+
+    private synchronized List<Achievement> check(AchievementType type, int value) {
         List<Achievement> unlockedAchievements = new ArrayList<>();
-        
+        indexes.get(type).unlockUpTo(value, unlockedAchievements);
+        return unlocked(unlockedAchievements);
+    }
+
+    private List<Achievement> unlocked(List<Achievement> unlockedAchievements) {
+        if (!unlockedAchievements.isEmpty()) {
+            unlockedView = null;
+            clearProgress();
+            persist();
+        }
+        return unlockedAchievements;
+    }
+
+    private void clearProgress() {
+        progressByType.clear();
+        ruleProgress = null;
+        progressView = null;
+    }
+
+    /**
+     * Progress towards every locked achievement, by type and threshold, then
+     * the rules. The list is cached; only the types whose progress changed
+     * since the last call are recomputed.
+     * @param child Child whose progress is shown; this manager must be listening to it
+     * @return Read-only list of progress entries
+     */
+    public synchronized List<AchievementProgress> getProgress(Child child) {
+        if (progressView == null) {
+            List<AchievementProgress> view = new ArrayList<>();
+            for (AchievementType type : AchievementType.values()) {
+                if (type != AchievementType.RULE) {
+                    view.addAll(progressByType.computeIfAbsent(type, t -> typeProgress(t, child)));
+                }
+            }
+            if (ruleProgress == null) {
+                ruleProgress = ruleProgress();
+            }
+            view.addAll(ruleProgress);
+            progressView = Collections.unmodifiableList(view);
+        }
+        return progressView;
+    }
+
+    private List<AchievementProgress> typeProgress(AchievementType type, Child child) {
+        List<Achievement> locked = new ArrayList<>();
+        indexes.get(type).addLocked(locked);
+        List<AchievementProgress> entries = new ArrayList<>(locked.size());
+        for (Achievement achievement : locked) {
+            int current = child.progressValue(type);
+            entries.add(new AchievementProgress(achievement, current,
+                    current >= achievement.getThreshold() ? READY : remaining(achievement, child)));
+        }
+        return entries;
+    }
+
+    private static String remaining(Achievement achievement, Child child) {
+        int threshold = achievement.getThreshold();
+        switch (achievement.getType()) {
+            case TASK_COMPLETION:
+                return plural(threshold - child.getCompletedTasksCount(), "more task", "more tasks");
+            case WISH_APPROVED:
+                return plural(threshold - child.getApprovedWishesCount(), "more wish", "more wishes");
+            case POINTS_EARNED:
+                return remainingPoints(threshold - child.getPoints(), child);
+            case LEVEL_REACHED:
+                if (threshold > Child.MAX_LEVEL) {
+                    return "not reachable";
+                }
+                return remainingPoints(Child.pointsForLevel(threshold) - child.getPoints(), child);
+            case RATING_EARNED: {
+                // Math.round(average) >= threshold once 2 * sum >= (2 * threshold - 1) * count
+                RatingStats ratings = child.getRatingStats();
+                long needed = 2L * threshold - 1;
+                long perRating = 2L * RatingStats.MAX_RATING - needed;
+                if (perRating <= 0) {
+                    return "not reachable";
+                }
+                long deficit = needed * ratings.getCount() - 2 * ratings.getSum();
+                long count = Math.max(1, (deficit + perRating - 1) / perRating);
+                return plural(count, "more rating of " + RatingStats.MAX_RATING,
+                        "more ratings of " + RatingStats.MAX_RATING);
+            }
+            default:
+                return "";
+        }
+    }
+
+    private static String remainingPoints(int points, Child child) {
+        String text = plural(points, "more point", "more points");
+        double perTask = child.getAverageTaskPoints();
+        if (perTask > 0) {
+            text += ", about " + plural((long) Math.ceil(points / perTask), "task", "tasks");
+        }
+        return text;
+    }
+
+    private static String plural(long count, String one, String many) {
+        return count + " " + (count == 1 ? one : many);
+    }
+
+    private List<AchievementProgress> ruleProgress() {
+        List<AchievementProgress> entries = new ArrayList<>();
+        for (Achievement achievement : rules) {
+            if (achievement.isUnlocked()) {
+                continue;
+            }
+            AchievementRule rule = achievement.getRule();
+            int current = rule.getProgress();
+            String remaining;
+            if (rule.isMet()) {
+                remaining = READY;
+            } else {
+                int missing = rule.getThreshold() - current;
+                remaining = rule.isPointsRule() ? plural(missing, "more point", "more points")
+                        : rule.isWishRule() ? plural(missing, "more wish", "more wishes")
+                        : plural(missing, "more task", "more tasks");
+                if (rule.hasWindow()) {
+                    remaining += " in one window";
+                }
+            }
+            entries.add(new AchievementProgress(achievement, current, remaining));
+        }
+        return entries;
+    }
+
+    /**
+     * Sort each type's achievements by threshold. Called whenever the list is replaced.
+     */
+    private void rebuildIndex() {
+        Map<AchievementType, List<Achievement>> byType = new EnumMap<>(AchievementType.class);
+        for (AchievementType type : AchievementType.values()) {
+            byType.put(type, new ArrayList<>());
+        }
+        rules.clear();
         for (Achievement achievement : achievements) {
-            if (achievement.getType() == AchievementType.WISH_APPROVED) {
-                if (achievement.checkAndUnlock(approvedWishesCount)) {
-                    unlockedAchievements.add(achievement);
+            if (achievement.getRule() != null) {
+                rules.add(achievement);
+            } else {
+                byType.get(achievement.getType()).add(achievement);
+            }
+        }
+        indexes.clear();
+        clearProgress();
+        for (Map.Entry<AchievementType, List<Achievement>> entry : byType.entrySet()) {
+            indexes.put(entry.getKey(), new ThresholdIndex(entry.getValue()));
+        }
+    }
+
+    /**
+     * One type's achievements in threshold order. Every achievement before
+     * the cursor has been checked against a value at least its threshold and
+     * is unlocked, so a check only looks at the achievements past the cursor
+     * and costs O(1) when nothing new unlocks.
+     */
+    private static class ThresholdIndex {
+        // Sorted by threshold; position[i] is sorted[i]'s place in the file
+        private final Achievement[] sorted;
+        private final int[] position;
+        private int cursor;
+
+        ThresholdIndex(List<Achievement> achievements) {
+            Integer[] order = new Integer[achievements.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> achievements.get(i).getThreshold()));
+            sorted = new Achievement[order.length];
+            position = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sorted[i] = achievements.get(order[i]);
+                position[i] = order[i];
+            }
+        }
+
+        void addLocked(List<Achievement> out) {
+            for (int i = cursor; i < sorted.length; i++) {
+                if (!sorted[i].isUnlocked()) {
+                    out.add(sorted[i]);
                 }
             }
         }
-        
-        if (!unlockedAchievements.isEmpty()) {
-            saveAchievements();
+
+        void unlockUpTo(int value, List<Achievement> out) {
+            int from = cursor;
+            int first = out.size();
+            while (cursor < sorted.length && sorted[cursor].getThreshold() <= value) {
+                if (sorted[cursor].checkAndUnlock(value)) {
+                    out.add(sorted[cursor]);
+                }
+                cursor++;
+            }
+            if (out.size() - first > 1) {
+                // Report several unlocks in file order, as a scan of the list would
+                out.subList(first, out.size()).sort(Comparator.comparingInt(a -> positionOf(a, from)));
+            }
+        }
+
+        private int positionOf(Achievement achievement, int from) {
+            for (int i = from; i < cursor; i++) {
+                if (sorted[i] == achievement) {
+                    return position[i];
+                }
+            }
+            return Integer.MAX_VALUE;
         }
-        
-        return unlockedAchievements;
     }
     
     /**
      * Get all achievements.
-     * @return List of all achievements
+     * @return Read-only view of all achievements
      */
     public List<Achievement> getAllAchievements() {
-        return new ArrayList<>(achievements);
+        return Collections.unmodifiableList(achievements);
     }
     
     /**
-     * Get all unlocked achievements.
-     * @return List of unlocked achievements
+     * Get all unlocked achievements. The list is cached until the next unlock.
+     * @return Read-only list of unlocked achievements
      */
     public List<Achievement> getUnlockedAchievements() {
-        List<Achievement> unlockedAchievements = new ArrayList<>();
-        
-        for (Achievement achievement : achievements) {
-            if (achievement.isUnlocked()) {
-                unlockedAchievements.add(achievement);
+        if (unlockedView == null) {
+            List<Achievement> unlockedAchievements = new ArrayList<>();
+            
+            for (Achievement achievement : achievements) {
+                if (achievement.isUnlocked()) {
+                    unlockedAchievements.add(achievement);
+                }
             }
+            
+            unlockedView = Collections.unmodifiableList(unlockedAchievements);
         }
-        
-        return unlockedAchievements;
+        return unlockedView;
     }
     
     /**
@@ -0,0 +1,43 @@
+package com.taskmanager;
+
+/**
+ * How close the child is to a locked achievement.
+ */
+public class AchievementProgress {
+    private final Achievement achievement;
+    private final int current;
+    private final String remaining;
+
+    /**
+     * @param achievement Locked achievement
+     * @param current Value compared with the threshold, e.g. total points
+     * @param remaining What is still needed, e.g. "25 more points, about 3 tasks"
+     */
+    public AchievementProgress(Achievement achievement, int current, String remaining) {
+        this.achievement = achievement;
+        this.current = current;
+        this.remaining = remaining;
+    }
+
+    public Achievement getAchievement() { return achievement; }
+    public int getCurrent() { return current; }
+    public int getThreshold() { return achievement.getThreshold(); }
+    public String getRemaining() { return remaining; }
+
+    /**
+     * @return Share of the threshold reached, from 0 to 100
+     */
+    public int getPercent() {
+        int threshold = achievement.getThreshold();
+        if (threshold <= 0 || current >= threshold) {
+            return 100;
+        }
+        return (int) Math.max(0, (long) current * 100 / threshold);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d/%d (%d%%) - %s [%s]", achievement.getName(), current,
+                achievement.getThreshold(), getPercent(), remaining, achievement.getType().getDisplayName());
+    }
+}
@@ -0,0 +1,373 @@
+package com.taskmanager;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A compound achievement condition over approved tasks or wishes, written in
+ * the threshold column of a RULE line in Achievements.txt:
+ *
+ *   HW3,Homework Week,Complete 3 high priority homework tasks in one week,RULE,count task category=HOMEWORK priority=HIGH >= 3 within 7d,false
+ *   CH50,Chore Champion,Earn 50 points from chores set by a parent,RULE,points task category=CHORE assigned_by=F >= 50,false
+ *
+ * The expression is
+ *
+ *   (count|points) (task|wish) [filter...] >= N [within N(d|h)]
+ *
+ * count counts matching approvals and points sums the points of matching
+ * tasks. Task filters are category=, priority= and assigned_by= (alternatives
+ * separated by |), and rating or points compared with =, >= or <=. Wish rules
+ * accept level compared the same way. With "within", only approvals whose
+ * tasks are due in the same calendar window count: windows of whole weeks
+ * start on Monday, windows of days at midnight and windows of hours on the
+ * hour. A timed task is due at its end time. Windows go by due time rather
+ * than approval time because tasks do not record when they were approved, so
+ * totals rebuilt from Task.txt could not find the approval time.
+ *
+ * A compiled rule keeps its totals and is updated once per approval, so
+ * checking it never looks at earlier tasks again. A windowed rule keeps the
+ * total of each window from the latest one back to Settings.ruleWindowDays(),
+ * and reports the best of those. Approvals due before that horizon are not
+ * counted, and windows that fall behind it are dropped. The retained totals
+ * do not depend on the order of approvals, so totals rebuilt from history
+ * (AchievementManager.replayHistory) equal the ones kept while running.
+ */
+public class AchievementRule {
+    // 1970-01-05, the first Monday of the epoch, starts week-aligned windows
+    private static final long FIRST_MONDAY = 4;
+    private static final long RETAINED_HOURS = Settings.ruleWindowDays() * 24L;
+
+    private final String expression;
+    private final boolean wishRule;
+    private final boolean sumPoints;
+    private final Predicate<Task> taskFilter;
+    private final Predicate<Wish> wishFilter;
+    private final int threshold;
+    private final int windowHours;
+    private final long retainedWindows;
+
+    // No window: running total, and best is the same
+    private long total;
+    // Window: total by window index, and best is the largest of them
+    private final TreeMap<Long, Long> windowTotals = new TreeMap<>();
+    private long best;
+
+    private AchievementRule(String expression, boolean wishRule, boolean sumPoints, Predicate<Task> taskFilter,
+                            Predicate<Wish> wishFilter, int threshold, int windowHours) {
+        this.expression = expression;
+        this.wishRule = wishRule;
+        this.sumPoints = sumPoints;
+        this.taskFilter = taskFilter;
+        this.wishFilter = wishFilter;
+        this.threshold = threshold;
+        this.windowHours = windowHours;
+        this.retainedWindows = windowHours == 0 ? 0 : Math.max(1, (RETAINED_HOURS + windowHours - 1) / windowHours);
+    }
+
+    /**
+     * Compile a rule expression.
+     * @param expression Expression as described above
+     * @return The compiled rule with empty totals
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public static AchievementRule compile(String expression) {
+        String[] tokens = expression.trim().split("\\s+");
+        if (tokens.length < 4) {
+            throw new IllegalArgumentException("Incomplete rule: " + expression);
+        }
+        boolean sumPoints;
+        switch (tokens[0].toLowerCase(Locale.ROOT)) {
+            case "count":
+                sumPoints = false;
+                break;
+            case "points":
+                sumPoints = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Rule must start with count or points: " + expression);
+        }
+        boolean wishRule;
+        switch (tokens[1].toLowerCase(Locale.ROOT)) {
+            case "task":
+                wishRule = false;
+                break;
+            case "wish":
+                wishRule = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Rule event must be task or wish: " + tokens[1]);
+        }
+        if (wishRule && sumPoints) {
+            throw new IllegalArgumentException("Wishes have no points: " + expression);
+        }
+
+        Predicate<Task> taskFilter = task -> true;
+        Predicate<Wish> wishFilter = wish -> true;
+        int i = 2;
+        for (; i < tokens.length && !tokens[i].equals(">="); i++) {
+            if (wishRule) {
+                wishFilter = wishFilter.and(compileWishFilter(tokens[i]));
+            } else {
+                taskFilter = taskFilter.and(compileTaskFilter(tokens[i]));
+            }
+        }
+        if (i + 1 >= tokens.length) {
+            throw new IllegalArgumentException("Rule needs \">= N\": " + expression);
+        }
+        int threshold = parseNumber(tokens[i + 1]);
+        i += 2;
+
+        int windowHours = 0;
+        if (i < tokens.length) {
+            if (!tokens[i].equalsIgnoreCase("within") || i + 2 != tokens.length) {
+                throw new IllegalArgumentException("Unexpected \"" + tokens[i] + "\" in rule: " + expression);
+            }
+            if (wishRule) {
+                throw new IllegalArgumentException("Time windows apply to task rules only: " + expression);
+            }
+            windowHours = parseWindow(tokens[i + 1]);
+        }
+        return new AchievementRule(expression.trim(), wishRule, sumPoints, taskFilter, wishFilter,
+                threshold, windowHours);
+    }
+
+    private static Predicate<Task> compileTaskFilter(String token) {
+        Filter filter = Filter.parse(token);
+        switch (filter.key) {
+            case "category": {
+                Set<TaskCategory> categories = EnumSet.noneOf(TaskCategory.class);
+                for (String value : filter.values()) {
+                    categories.add(category(value));
+                }
+                return task -> categories.contains(task.getCategory());
+            }
+            case "priority": {
+                Set<TaskPriority> priorities = EnumSet.noneOf(TaskPriority.class);
+                for (String value : filter.values()) {
+                    priorities.add(priority(value));
+                }
+                return task -> priorities.contains(task.getPriority());
+            }
+            case "assigned_by": {
+                Set<String> assigners = new HashSet<>();
+                for (String value : filter.values()) {
+                    if (!value.equals("T") && !value.equals("F")) {
+                        throw new IllegalArgumentException("assigned_by must be T or F: " + token);
+                    }
+                    assigners.add(value);
+                }
+                return task -> assigners.contains(task.getAssignedBy());
+            }
+            case "rating": {
+                IntPredicate test = filter.comparison();
+                return task -> test.test(task.getRating());
+            }
+            case "points": {
+                IntPredicate test = filter.comparison();
+                return task -> test.test(task.getPoints());
+            }
+            default:
+                throw new IllegalArgumentException("Unknown task filter: " + token);
+        }
+    }
+
+    private static Predicate<Wish> compileWishFilter(String token) {
+        Filter filter = Filter.parse(token);
+        if (!filter.key.equals("level")) {
+            throw new IllegalArgumentException("Unknown wish filter: " + token);
+        }
+        IntPredicate test = filter.comparison();
+        return wish -> test.test(wish.getRequiredLevel());
+    }
+
+    // Unlike TaskCategory.fromString, a misspelled value is an error rather than OTHER
+    private static TaskCategory category(String value) {
+        for (TaskCategory category : TaskCategory.values()) {
+            if (category.name().equalsIgnoreCase(value) || category.getDisplayName().equalsIgnoreCase(value)) {
+                return category;
+            }
+        }
+        throw new IllegalArgumentException("Unknown category: " + value);
+    }
+
+    private static TaskPriority priority(String value) {
+        for (TaskPriority priority : TaskPriority.values()) {
+            if (priority.name().equalsIgnoreCase(value) || priority.getDisplayName().equalsIgnoreCase(value)) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("Unknown priority: " + value);
+    }
+
+    private static int parseWindow(String token) {
+        String unit = token.substring(token.length() - 1).toLowerCase(Locale.ROOT);
+        int length = parseNumber(token.substring(0, token.length() - 1));
+        if (length <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + token);
+        }
+        switch (unit) {
+            case "d":
+                return Math.multiplyExact(length, 24);
+            case "h":
+                return length;
+            default:
+                throw new IllegalArgumentException("Window must end in d or h: " + token);
+        }
+    }
+
+    private static int parseNumber(String token) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + token);
+        }
+    }
+
+    /**
+     * One key=value, key>=value or key<=value filter.
+     */
+    private static class Filter {
+        final String key;
+        final String operator;
+        final String value;
+
+        private Filter(String key, String operator, String value) {
+            this.key = key;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        static Filter parse(String token) {
+            for (String operator : new String[] {">=", "<=", "="}) {
+                int at = token.indexOf(operator);
+                if (at > 0 && at + operator.length() < token.length()) {
+                    return new Filter(token.substring(0, at).toLowerCase(Locale.ROOT), operator,
+                            token.substring(at + operator.length()));
+                }
+            }
+            throw new IllegalArgumentException("Invalid filter: " + token);
+        }
+
+        String[] values() {
+            if (!operator.equals("=")) {
+                throw new IllegalArgumentException(key + " only supports =");
+            }
+            return value.split("\\|");
+        }
+
+        IntPredicate comparison() {
+            int bound = parseNumber(value);
+            switch (operator) {
+                case ">=":
+                    return actual -> actual >= bound;
+                case "<=":
+                    return actual -> actual <= bound;
+                default:
+                    return actual -> actual == bound;
+            }
+        }
+    }
+
+    /**
+     * Count an approved task.
+     * @param task Approved task, with its rating set
+     * @return true if the task matched the rule and was counted
+     */
+    public boolean taskApproved(Task task) {
+        if (wishRule || !taskFilter.test(task)) {
+            return false;
+        }
+        return add(sumPoints ? task.getPoints() : 1, dueTime(task));
+    }
+
+    /**
+     * Count an approved wish.
+     * @param wish Approved wish
+     * @return true if the wish matched the rule and was counted
+     */
+    public boolean wishApproved(Wish wish) {
+        if (!wishRule || !wishFilter.test(wish)) {
+            return false;
+        }
+        return add(1, null);
+    }
+
+    private boolean add(int amount, LocalDateTime time) {
+        if (windowHours == 0) {
+            total += amount;
+            best = total;
+            return true;
+        }
+        if (time == null) {
+            return false;
+        }
+        long window = windowIndex(time);
+        if (!windowTotals.isEmpty() && window <= windowTotals.lastKey() - retainedWindows) {
+            // Behind the horizon; see the class comment
+            return false;
+        }
+        best = Math.max(best, windowTotals.merge(window, (long) amount, Long::sum));
+        SortedMap<Long, Long> expired = windowTotals.headMap(windowTotals.lastKey() - retainedWindows, true);
+        if (!expired.isEmpty()) {
+            boolean bestExpired = expired.containsValue(best);
+            expired.clear();
+            if (bestExpired) {
+                best = 0;
+                for (long windowTotal : windowTotals.values()) {
+                    best = Math.max(best, windowTotal);
+                }
+            }
+        }
+        return true;
+    }
+
+    private long windowIndex(LocalDateTime time) {
+        long hours = time.toLocalDate().toEpochDay() * 24 + time.getHour();
+        if (windowHours % 24 == 0) {
+            // Align day windows to midnight and week windows to Monday
+            return Math.floorDiv(hours - FIRST_MONDAY * 24, windowHours);
+        }
+        return Math.floorDiv(hours, windowHours);
+    }
+
+    // When a task is due for windowed rules: its deadline, or the end of a timed task
+    private static LocalDateTime dueTime(Task task) {
+        return task.getDeadline() != null ? task.getDeadline() : task.getEndTime();
+    }
+
+    /**
+     * Forget all counted approvals.
+     */
+    public void reset() {
+        total = 0;
+        best = 0;
+        windowTotals.clear();
+    }
+
+    /**
+     * @return true once the total, or the total of one retained window, reached the threshold
+     */
+    public boolean isMet() {
+        return best >= threshold;
+    }
+
+    /**
+     * @return The total, or the highest total of any retained window, capped at Integer.MAX_VALUE
+     */
+    public int getProgress() {
+        return (int) Math.min(best, Integer.MAX_VALUE);
+    }
+
+    public int getThreshold() { return threshold; }
+    public String getExpression() { return expression; }
+    public boolean isWishRule() { return wishRule; }
+    public boolean isPointsRule() { return sumPoints; }
+    public boolean hasWindow() { return windowHours > 0; }
+}
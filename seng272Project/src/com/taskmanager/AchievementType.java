@@ -8,7 +8,9 @@ public enum AchievementType {
     POINTS_EARNED("Points Earned"),
     RATING_EARNED("Rating Earned"),
     LEVEL_REACHED("Level Reached"),
-    WISH_APPROVED("Wish Approved");
+    WISH_APPROVED("Wish Approved"),
+    // Compound condition given by an AchievementRule
+    RULE("Rule");
     
     private final String displayName;
     
@@ -0,0 +1,121 @@
+package com.taskmanager;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+/**
+ * Fixed-size ring buffer of formatted log messages drained by one background
+ * thread, so logging threads only pay for a short critical section instead of
+ * console I/O. When the buffer is full, loggers wait for the writer to catch up
+ * rather than dropping messages. The writer prints messages in the order they
+ * were published, straight to the process's stdout and stderr, and flushes once
+ * per drained batch. Their order relative to System.out output is not kept.
+ */
+final class AsyncLogSink implements Runnable {
+    private final String[] messages;
+    private final LogLevel[] levels;
+    private final int mask;
+    // Buffered console streams of our own, flushed once per batch
+    private final PrintStream out = new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024), false);
+    private final PrintStream err = new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.err), 16 * 1024), false);
+    // Total messages published and written; their difference is the queue length
+    private long published;
+    private long written;
+
+    private AsyncLogSink(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        messages = new String[size];
+        levels = new LogLevel[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Create the sink and start its writer thread. Queued messages are written
+     * when the JVM shuts down.
+     * @param capacity Messages the buffer holds, rounded up to a power of two
+     * @return The running sink
+     */
+    static AsyncLogSink start(int capacity) {
+        AsyncLogSink sink = new AsyncLogSink(capacity);
+        Thread writer = new Thread(sink, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(sink::flush, "log-flush"));
+        return sink;
+    }
+
+    synchronized void publish(LogLevel level, String message) {
+        while (published - written == messages.length) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        int slot = (int) published & mask;
+        messages[slot] = message;
+        levels[slot] = level;
+        published++;
+        // The writer only waits when everything has been written
+        if (published - written == 1) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait until every message published so far has been written.
+     */
+    synchronized void flush() {
+        long target = published;
+        while (written < target) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        String[] batch = new String[messages.length];
+        LogLevel[] batchLevels = new LogLevel[messages.length];
+        while (true) {
+            int count;
+            synchronized (this) {
+                while (published == written) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                count = (int) (published - written);
+                for (int i = 0; i < count; i++) {
+                    int slot = (int) (written + i) & mask;
+                    batch[i] = messages[slot];
+                    batchLevels[i] = levels[slot];
+                    messages[slot] = null;
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                (batchLevels[i].ordinal() >= LogLevel.WARN.ordinal() ? err : out).println(batch[i]);
+                batch[i] = null;
+            }
+            out.flush();
+            err.flush();
+
+            synchronized (this) {
+                written += count;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Stores records in a BinarySnapshot file. Until the first binary snapshot
+ * has been written, records are loaded from a fallback storage (normally the
+ * text file), so switching formats needs no separate conversion step.
+ * @param <T> Record type
+ */
+public class BinaryFileStorage<T> implements Storage<T> {
+    /**
+     * Reads a snapshot file.
+     */
+    public interface Reader<T> {
+        List<T> read(File file) throws IOException;
+    }
+
+    /**
+     * Writes a snapshot file.
+     */
+    public interface Writer<T> {
+        void write(File file, Collection<T> records) throws IOException;
+    }
+
+    private final File file;
+    private final Reader<T> reader;
+    private final Writer<T> writer;
+    private final Storage<T> fallback;
+
+    /**
+     * @param file Snapshot file
+     * @param reader Snapshot reader, e.g. BinarySnapshot::readTasks
+     * @param writer Snapshot writer, e.g. BinarySnapshot::writeTasks
+     * @param fallback Storage to load from while the snapshot file does not exist, or null
+     */
+    public BinaryFileStorage(File file, Reader<T> reader, Writer<T> writer, Storage<T> fallback) {
+        this.file = file;
+        this.reader = reader;
+        this.writer = writer;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public List<T> load() throws IOException {
+        if (!file.exists() && fallback != null) {
+            return fallback.load();
+        }
+        return reader.read(file);
+    }
+
+    @Override
+    public void save(Collection<T> records) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        writer.write(temp, records);
+        Files.move(temp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String getLocation() {
+        return file.getPath();
+    }
+}
@@ -0,0 +1,344 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot format for tasks and wishes.
+ *
+ * Layout: magic "TMSN", version byte, kind byte, record count (int), the records,
+ * then a CRC32 (long) of everything before it. Strings are UTF-8 with a varint
+ * length prefix, times are minutes since the epoch (UTC) and enums are stored as
+ * their ordinal byte. Task ratings are zigzag varints, so any int survives;
+ * version 1 files, which stored the rating as one byte, are still read.
+ * Files are written through one reusable buffer and read into a heap buffer,
+ * with the checksum computed over whole blocks. Reading does not memory-map
+ * the file, because a mapping keeps it open until it is garbage collected,
+ * and on Windows that blocks replacing it.
+ */
+public final class BinarySnapshot {
+    private static final int MAGIC = 0x544D534E; // "TMSN"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_BYTE_RATING = 1;
+    private static final byte KIND_TASKS = 1;
+    private static final byte KIND_WISHES = 2;
+
+    private static final int TASK_TIMED = 1;
+    private static final int TASK_COMPLETED = 1 << 1;
+    private static final int TASK_APPROVED = 1 << 2;
+    private static final int WISH_TIMED = 1;
+    private static final int WISH_APPROVED = 1 << 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Write tasks to a binary snapshot file.
+     * @param file Destination file
+     * @param tasks Tasks to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeTasks(File file, Collection<Task> tasks) throws IOException {
+        try (Encoder out = new Encoder(new FileOutputStream(file))) {
+            out.header(KIND_TASKS, tasks.size());
+            for (Task task : tasks) {
+                int flags = (task.getStartTime() != null ? TASK_TIMED : 0)
+                        | (task.isCompleted() ? TASK_COMPLETED : 0)
+                        | (task.isApproved() ? TASK_APPROVED : 0);
+                out.putByte(flags);
+                out.putString(task.getId());
+                out.putString(task.getAssignedBy());
+                out.putString(task.getTitle());
+                out.putString(task.getDescription());
+                if (task.getStartTime() != null) {
+                    out.putInt(toEpochMinute(task.getStartTime()));
+                    out.putInt(toEpochMinute(task.getEndTime()));
+                } else {
+                    out.putInt(toEpochMinute(task.getDeadline()));
+                }
+                out.putByte(task.getCategory().ordinal());
+                out.putByte(task.getPriority().ordinal());
+                out.putVarInt(task.getPoints());
+                out.putZigZag(task.getRating());
+            }
+        }
+    }
+
+    /**
+     * Read tasks from a binary snapshot file.
+     * @param file Snapshot file
+     * @return Tasks in the order they were written
+     * @throws IOException if the file is unreadable, of the wrong kind or fails its checksum
+     */
+    public static List<Task> readTasks(File file) throws IOException {
+        Decoder in = new Decoder(file);
+        int count = in.header(KIND_TASKS);
+        TaskCategory[] categories = TaskCategory.values();
+        TaskPriority[] priorities = TaskPriority.values();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = in.getByte();
+            String id = in.getString();
+            String assignedBy = in.getString();
+            String title = in.getString();
+            String description = in.getString();
+            LocalDateTime first = fromEpochMinute(in.getInt());
+            LocalDateTime second = (flags & TASK_TIMED) != 0 ? fromEpochMinute(in.getInt()) : null;
+            TaskCategory category = categories[in.getByte()];
+            TaskPriority priority = priorities[in.getByte()];
+            int points = in.getVarInt();
+            int rating = in.version == VERSION_BYTE_RATING ? in.getByte() : in.getZigZag();
+
+            Task task = second != null
+                    ? new Task(id, assignedBy, title, description, first, second, points, category, priority)
+                    : new Task(id, assignedBy, title, description, first, points, category, priority);
+            task.setCompleted((flags & TASK_COMPLETED) != 0);
+            task.setApproved((flags & TASK_APPROVED) != 0);
+            task.setRating(rating);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Write wishes to a binary snapshot file.
+     * @param file Destination file
+     * @param wishes Wishes to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeWishes(File file, Collection<Wish> wishes) throws IOException {
+        try (Encoder out = new Encoder(new FileOutputStream(file))) {
+            out.header(KIND_WISHES, wishes.size());
+            for (Wish wish : wishes) {
+                int flags = (wish.getStartTime() != null ? WISH_TIMED : 0)
+                        | (wish.isApproved() ? WISH_APPROVED : 0);
+                out.putByte(flags);
+                out.putString(wish.getId());
+                out.putString(wish.getTitle());
+                out.putString(wish.getDescription());
+                if (wish.getStartTime() != null) {
+                    out.putInt(toEpochMinute(wish.getStartTime()));
+                    out.putInt(toEpochMinute(wish.getEndTime()));
+                }
+                out.putVarInt(wish.getRequiredLevel());
+            }
+        }
+    }
+
+    /**
+     * Read wishes from a binary snapshot file.
+     * @param file Snapshot file
+     * @return Wishes in the order they were written
+     * @throws IOException if the file is unreadable, of the wrong kind or fails its checksum
+     */
+    public static List<Wish> readWishes(File file) throws IOException {
+        Decoder in = new Decoder(file);
+        int count = in.header(KIND_WISHES);
+        List<Wish> wishes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = in.getByte();
+            String id = in.getString();
+            String title = in.getString();
+            String description = in.getString();
+            Wish wish;
+            if ((flags & WISH_TIMED) != 0) {
+                LocalDateTime startTime = fromEpochMinute(in.getInt());
+                LocalDateTime endTime = fromEpochMinute(in.getInt());
+                wish = new Wish(id, title, description, startTime, endTime);
+            } else {
+                wish = new Wish(id, title, description);
+            }
+            wish.setApproved((flags & WISH_APPROVED) != 0);
+            wish.setRequiredLevel(in.getVarInt());
+            wishes.add(wish);
+        }
+        return wishes;
+    }
+
+    private static int toEpochMinute(LocalDateTime dateTime) {
+        return Math.toIntExact(dateTime.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private static LocalDateTime fromEpochMinute(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Buffered writer that checksums each full buffer and appends the CRC on close.
+     */
+    private static class Encoder implements AutoCloseable {
+        private final OutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        void header(byte kind, int count) throws IOException {
+            putInt(MAGIC);
+            putByte(VERSION);
+            putByte(kind);
+            putInt(count);
+        }
+
+        void putByte(int value) throws IOException {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        // Unsigned LEB128: seven bits per byte, high bit set on all but the last byte
+        void putVarInt(int value) throws IOException {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // Zigzag maps small negative and positive values to small varints
+        void putZigZag(int value) throws IOException {
+            putVarInt((value << 1) ^ (value >> 31));
+        }
+
+        void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                drain();
+                crc.update(bytes, 0, bytes.length);
+                out.write(bytes);
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+                buffer.putLong(crc.getValue());
+                out.write(buffer.array(), 0, buffer.position());
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reader over a snapshot read fully into memory, whose checksum is verified up front.
+     */
+    private static class Decoder {
+        private final ByteBuffer buffer;
+        private int version;
+        private byte[] scratch = new byte[256];
+
+        Decoder(File file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < 18) {
+                    throw new IOException("Snapshot file is truncated");
+                }
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot file is too large to read");
+                }
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IOException("Snapshot file is truncated");
+                    }
+                }
+                buffer.flip();
+            }
+            int payload = buffer.limit() - 8;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit(payload));
+            if (buffer.getLong(payload) != crc.getValue()) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            buffer.limit(payload);
+        }
+
+        int header(byte kind) throws IOException {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file");
+            }
+            version = getByte();
+            if (version != VERSION && version != VERSION_BYTE_RATING) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            int actualKind = getByte();
+            if (actualKind != kind) {
+                throw new IOException("Unexpected snapshot kind " + actualKind);
+            }
+            return buffer.getInt();
+        }
+
+        int getByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        int getInt() {
+            return buffer.getInt();
+        }
+
+        int getVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = getByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        int getZigZag() throws IOException {
+            int value = getVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String getString() throws IOException {
+            int length = getVarInt();
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -2,37 +2,172 @@ package com.taskmanager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 
 public class Child {
+    public static final int MAX_LEVEL = 4;
+
     private int points;
-    private List<Integer> ratings;
+    private RatingStats ratings;
     private int completedTasksCount;
     private int approvedWishesCount;
+    private final List<ProgressListener> listeners = new ArrayList<>(1);
+    // Points of the tasks approved in this run, for estimating how many tasks a goal needs
+    private long taskPointsSum;
+    private int taskPointsCount;
 
     public Child() {
         this.points = 0;
-        this.ratings = new ArrayList<>();
+        this.ratings = new RatingStats();
         this.completedTasksCount = 0;
         this.approvedWishesCount = 0;
-        System.out.println("Child initialized with 0 points");
+        Log.info("Child initialized with 0 points");
+    }
+
+    /**
+     * Publish every change to a listener, starting with the current values.
+     * @param listener Listener to add
+     */
+    public void addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+        for (AchievementType type : AchievementType.values()) {
+            listener.progressChanged(type, progressValue(type));
+        }
+    }
+
+    public void removeProgressListener(ProgressListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(AchievementType type) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).progressChanged(type, progressValue(type));
+        }
+    }
+
+    /**
+     * Tell listeners that a task was approved, after its rating and points
+     * were credited. Called only the first time a task is approved.
+     * @param task Approved task
+     */
+    public void taskApproved(Task task) {
+        taskPointsSum += task.getPoints();
+        taskPointsCount++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).taskApproved(task);
+        }
+    }
+
+    /**
+     * Tell listeners that a wish was approved. Called only the first time a
+     * wish is approved.
+     * @param wish Approved wish
+     */
+    public void wishApproved(Wish wish) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).wishApproved(wish);
+        }
+    }
+
+    /**
+     * The value achievements of a type are compared with.
+     * @param type Achievement type
+     * @return Current value for that type
+     */
+    public int progressValue(AchievementType type) {
+        switch (type) {
+            case TASK_COMPLETION:
+                return completedTasksCount;
+            case POINTS_EARNED:
+                return points;
+            case RATING_EARNED:
+                return (int) Math.round(calculateAverageRating());
+            case LEVEL_REACHED:
+                return getLevel();
+            case WISH_APPROVED:
+                return approvedWishesCount;
+            default:
+                return 0;
+        }
     }
 
     public void addPoints(int points) {
+        int level = getLevel();
         this.points += points;
-        System.out.println("Added " + points + " points to budget. Total points: " + this.points);
+        Log.debug("Added {} points to budget. Total points: {}", points, this.points);
+        publish(AchievementType.POINTS_EARNED);
+        if (getLevel() != level) {
+            publish(AchievementType.LEVEL_REACHED);
+        }
     }
     
     public void incrementCompletedTasksCount() {
         this.completedTasksCount++;
+        publish(AchievementType.TASK_COMPLETION);
     }
     
     public void incrementApprovedWishesCount() {
         this.approvedWishesCount++;
+        publish(AchievementType.WISH_APPROVED);
     }
 
     public void addRating(int rating) {
         ratings.add(rating);
-        System.out.println("Added rating " + rating + ". Total ratings: " + ratings.size());
+        Log.debug("Added rating {}. Total ratings: {}", rating, ratings.getCount());
+        publish(AchievementType.RATING_EARNED);
+    }
+
+    /**
+     * Set every counter at once, e.g. when returning to a replay checkpoint.
+     * @param points Budget points
+     * @param ratings Rating statistics
+     * @param completedTasksCount Approved tasks
+     * @param approvedWishesCount Approved wishes
+     */
+    public void restore(int points, RatingStats ratings, int completedTasksCount, int approvedWishesCount) {
+        this.points = points;
+        this.ratings = ratings;
+        this.completedTasksCount = completedTasksCount;
+        this.approvedWishesCount = approvedWishesCount;
+        for (AchievementType type : AchievementType.values()) {
+            publish(type);
+        }
+    }
+
+    /**
+     * Save the counters as properties, e.g. in a replay checkpoint manifest.
+     * @param properties Properties to add to
+     * @param prefix Prefix of the property names
+     */
+    public void store(Properties properties, String prefix) {
+        properties.setProperty(prefix + "points", Integer.toString(points));
+        properties.setProperty(prefix + "completedTasks", Integer.toString(completedTasksCount));
+        properties.setProperty(prefix + "approvedWishes", Integer.toString(approvedWishesCount));
+        ratings.store(properties, prefix + "ratings.");
+    }
+
+    /**
+     * Set the counters written by store().
+     * @param properties Properties to read
+     * @param prefix Prefix of the property names
+     * @throws IllegalArgumentException if a property is missing or malformed
+     */
+    public void restore(Properties properties, String prefix) {
+        RatingStats restored;
+        if (properties.getProperty(prefix + "ratings.count") != null) {
+            restored = RatingStats.load(properties, prefix + "ratings.");
+        } else {
+            // Written before rating statistics: every rating, oldest first
+            restored = new RatingStats();
+            for (String rating : RecordCodec.split(properties.getProperty(prefix + "ratings", ""), ',')) {
+                if (!rating.isEmpty()) {
+                    restored.add(Integer.parseInt(rating));
+                }
+            }
+        }
+        restore(Integer.parseInt(properties.getProperty(prefix + "points")), restored,
+                Integer.parseInt(properties.getProperty(prefix + "completedTasks")),
+                Integer.parseInt(properties.getProperty(prefix + "approvedWishes")));
     }
 
     public int getPoints() {
@@ -47,6 +182,28 @@ public class Child {
         return approvedWishesCount;
     }
 
+    public RatingStats getRatingStats() {
+        return ratings;
+    }
+
+    /**
+     * @return Average points of the tasks approved so far, or 0 if none were
+     */
+    public double getAverageTaskPoints() {
+        return taskPointsCount == 0 ? 0 : (double) taskPointsSum / taskPointsCount;
+    }
+
+    /**
+     * @param level Level from 1 to MAX_LEVEL
+     * @return Points needed to reach the level
+     */
+    public static int pointsForLevel(int level) {
+        if (level >= 4) return 100;
+        if (level == 3) return 75;
+        if (level == 2) return 50;
+        return 0;
+    }
+
     public int getLevel() {
         if (points >= 100) return 4;
         if (points >= 75) return 3;
@@ -55,8 +212,7 @@ public class Child {
     }
 
     private double calculateAverageRating() {
-        if (ratings.isEmpty()) return 0;
-        return ratings.stream().mapToInt(Integer::intValue).average().orElse(0);
+        return ratings.getAverage();
     }
 
     @Override
@@ -71,15 +227,27 @@ public class Child {
      * @return List of newly unlocked achievements
      */
     public List<Achievement> checkAchievements(AchievementManager achievementManager) {
-        List<Achievement> newlyUnlocked = new ArrayList<>();
-        
-        // Check each type of achievement
-        newlyUnlocked.addAll(achievementManager.checkTaskCompletionAchievements(completedTasksCount));
-        newlyUnlocked.addAll(achievementManager.checkPointsAchievements(points));
-        newlyUnlocked.addAll(achievementManager.checkRatingAchievements(calculateAverageRating()));
-        newlyUnlocked.addAll(achievementManager.checkLevelAchievements(getLevel()));
-        newlyUnlocked.addAll(achievementManager.checkWishAchievements(approvedWishesCount));
-        
-        return newlyUnlocked;
+        if (!listeners.contains(achievementManager)) {
+            // Not listening to this child, so hand it every current value
+            for (AchievementType type : AchievementType.values()) {
+                achievementManager.progressChanged(type, progressValue(type));
+            }
+        }
+        // Only the types that changed since the last check; unlocks are saved once
+        return achievementManager.checkPendingAchievements();
+    }
+
+    /**
+     * How close the child is to each locked achievement.
+     * @param achievementManager The achievement manager to report on
+     * @return Read-only list of progress entries
+     */
+    public List<AchievementProgress> getAchievementProgress(AchievementManager achievementManager) {
+        if (!listeners.contains(achievementManager)) {
+            for (AchievementType type : AchievementType.values()) {
+                achievementManager.progressChanged(type, progressValue(type));
+            }
+        }
+        return achievementManager.getProgress(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.taskmanager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * One parsed line of Commands.txt. Commands are parsed ahead of execution by
+ * CommandPipeline, so ADD commands already carry the task or wish they create,
+ * and a malformed line carries the error to report when its turn comes.
+ * A line may start with "@key" to address a family other than the default one.
+ */
+public class Command {
+    private static final String[] NO_PARTS = new String[0];
+
+    private final String line;
+    private final String family;
+    private final String[] parts;
+    private final long lineNumber;
+    private final long endOffset;
+    private Task task;
+    private Wish wish;
+    private RuntimeException error;
+
+    private Command(String line, String family, String[] parts, long lineNumber, long endOffset) {
+        this.line = line;
+        this.family = family;
+        this.parts = parts;
+        this.lineNumber = lineNumber;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * Tokenize a command line and build the task or wish of an ADD command.
+     * Never throws; parse errors are kept and reported by getError().
+     * @param line Command line
+     * @param lineNumber 1-based line number in the command file
+     * @param endOffset Byte offset just past the line's terminator
+     * @return The parsed command
+     */
+    public static Command parse(String line, long lineNumber, long endOffset) {
+        Command command;
+        try {
+            String[] parts = RecordCodec.split(line);
+            String family = null;
+            if (parts.length > 0 && parts[0].startsWith("@")) {
+                family = parseFamily(parts[0]);
+                parts = Arrays.copyOfRange(parts, 1, parts.length);
+            }
+            command = new Command(line, family, parts, lineNumber, endOffset);
+        } catch (RuntimeException e) {
+            command = new Command(line, null, NO_PARTS, lineNumber, endOffset);
+            command.error = e;
+            return command;
+        }
+        try {
+            switch (command.getType()) {
+                case "ADD_TASK1":
+                    command.task = parseTask1(command.parts);
+                    break;
+                case "ADD_TASK2":
+                    command.task = parseTask2(command.parts);
+                    break;
+                case "ADD_WISH1":
+                    command.wish = parseWish1(command.parts);
+                    break;
+                case "ADD_WISH2":
+                    command.wish = parseWish2(command.parts);
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            command.error = e;
+        }
+        return command;
+    }
+
+    // The key names a directory, so only letters, digits, '-' and '_' are allowed
+    private static String parseFamily(String token) {
+        String family = token.substring(1);
+        if (family.isEmpty()) {
+            throw new IllegalArgumentException("Missing family key");
+        }
+        for (int i = 0; i < family.length(); i++) {
+            char c = family.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                throw new IllegalArgumentException("Invalid family key: " + family);
+            }
+        }
+        return family;
+    }
+
+    private static Task parseTask1(String[] parts) {
+        String assignedBy = parts[1];
+        String id = parts[2];
+        String title = parts[3];
+        String description = parts[4];
+        int points = Integer.parseInt(parts[7]);
+        LocalDateTime deadline = RecordCodec.parseDateTime(parts[5], parts[6]);
+        return new Task(id, assignedBy, title, description, deadline, points,
+                parseCategory(parts, 8), parsePriority(parts, 8));
+    }
+
+    private static Task parseTask2(String[] parts) {
+        String assignedBy = parts[1];
+        String id = parts[2];
+        String title = parts[3];
+        String description = parts[4];
+        int points = Integer.parseInt(parts[9]);
+        LocalDateTime startTime = RecordCodec.parseDateTime(parts[5], parts[6]);
+        LocalDateTime endTime = RecordCodec.parseDateTime(parts[7], parts[8]);
+        return new Task(id, assignedBy, title, description, startTime, endTime, points,
+                parseCategory(parts, 10), parsePriority(parts, 10));
+    }
+
+    // Optional "CATEGORY x" after the fixed fields; defaults to OTHER
+    private static TaskCategory parseCategory(String[] parts, int from) {
+        TaskCategory category = TaskCategory.OTHER;
+        for (int i = from; i + 1 < parts.length; i++) {
+            if (parts[i].equals("CATEGORY")) {
+                category = TaskCategory.fromString(parts[i + 1]);
+            }
+        }
+        return category;
+    }
+
+    // Optional "PRIORITY x" after the fixed fields; defaults to MEDIUM
+    private static TaskPriority parsePriority(String[] parts, int from) {
+        TaskPriority priority = TaskPriority.MEDIUM;
+        for (int i = from; i + 1 < parts.length; i++) {
+            if (parts[i].equals("PRIORITY")) {
+                priority = TaskPriority.fromString(parts[i + 1]);
+            }
+        }
+        return priority;
+    }
+
+    private static Wish parseWish1(String[] parts) {
+        return new Wish(parts[1], parts[2], parts[3]);
+    }
+
+    private static Wish parseWish2(String[] parts) {
+        LocalDateTime startTime = RecordCodec.parseDateTime(parts[4], parts[5]);
+        LocalDateTime endTime = RecordCodec.parseDateTime(parts[6], parts[7]);
+        return new Wish(parts[1], parts[2], parts[3], startTime, endTime);
+    }
+
+    /**
+     * @return The command name, or an empty string for a blank line
+     */
+    public String getType() {
+        return parts.length > 0 ? parts[0] : "";
+    }
+
+    public String getLine() { return line; }
+    /** @return Family key from an "@key" prefix, or null for the default family */
+    public String getFamily() { return family; }
+    public String[] getParts() { return parts; }
+    public long getLineNumber() { return lineNumber; }
+    public long getEndOffset() { return endOffset; }
+    public Task getTask() { return task; }
+    public Wish getWish() { return wish; }
+    public RuntimeException getError() { return error; }
+}
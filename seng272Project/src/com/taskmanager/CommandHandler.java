@@ -0,0 +1,13 @@
+package com.taskmanager;
+
+/**
+ * Executes one type of command.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    /**
+     * @param family Family the command applies to
+     * @param command Parsed command whose type this handler is registered for
+     */
+    void handle(Family family, Command command);
+}
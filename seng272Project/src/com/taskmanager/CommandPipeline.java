@@ -0,0 +1,212 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Streams a command file through three stages connected by bounded queues:
+ * a reader thread splits the file into lines, a parser thread turns them into
+ * Command objects, and the calling thread executes them strictly in file order.
+ * Lines travel in batches so queue hand-offs stay cheap on very large files, and
+ * the bounded queues keep the read-ahead to a fixed number of batches.
+ */
+public class CommandPipeline {
+    private static final int BATCH_SIZE = 256;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // End-of-input markers passed down the pipeline
+    private static final LineBatch END_OF_LINES = new LineBatch(0, 0);
+    private static final List<Command> END_OF_COMMANDS = new ArrayList<>(0);
+
+    private final FileInputStream in;
+    private final BlockingQueue<LineBatch> lines;
+    private final BlockingQueue<List<Command>> commands;
+    private volatile IOException readError;
+    private long startOffset;
+    private long startLineNumber = 1;
+
+    /**
+     * Open a command file.
+     * @param file Command file
+     * @param queueBatches Batches each queue may hold ahead of the next stage
+     * @throws FileNotFoundException if the file cannot be opened
+     */
+    public CommandPipeline(File file, int queueBatches) throws FileNotFoundException {
+        this.in = new FileInputStream(file);
+        this.lines = new ArrayBlockingQueue<>(Math.max(1, queueBatches));
+        this.commands = new ArrayBlockingQueue<>(Math.max(1, queueBatches));
+    }
+
+    /**
+     * Skip the beginning of the file, e.g. when resuming from a checkpoint.
+     * Must be called before run().
+     * @param offset Byte offset of the first line to execute
+     * @param lineNumber Line number of that line
+     * @throws IOException if the file cannot be positioned
+     */
+    public void startAt(long offset, long lineNumber) throws IOException {
+        in.getChannel().position(offset);
+        startOffset = offset;
+        startLineNumber = lineNumber;
+    }
+
+    /**
+     * Read, parse and execute every command. Returns once the last command has
+     * been executed, and closes the file.
+     * @param executor Runs one command; called on the current thread, in file order
+     * @throws IOException if the file cannot be read
+     */
+    public void run(Consumer<Command> executor) throws IOException {
+        Thread reader = new Thread(this::readLines, "command-reader");
+        Thread parser = new Thread(this::parseLines, "command-parser");
+        reader.setDaemon(true);
+        parser.setDaemon(true);
+        reader.start();
+        parser.start();
+        try {
+            while (true) {
+                List<Command> batch = commands.take();
+                if (batch == END_OF_COMMANDS) {
+                    break;
+                }
+                for (Command command : batch) {
+                    executor.accept(command);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while executing commands");
+        } finally {
+            // Stops the other stages early if execution failed
+            reader.interrupt();
+            parser.interrupt();
+            in.close();
+        }
+        if (readError != null) {
+            throw readError;
+        }
+    }
+
+    /**
+     * Reader stage: split the raw bytes on '\n' (dropping a trailing '\r') and
+     * decode each line as UTF-8, remembering the byte offset where it ends.
+     */
+    private void readLines() {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        byte[] pending = new byte[256];
+        int pendingLength = 0;
+        long offset = startOffset;
+        long lineNumber = startLineNumber;
+        LineBatch batch = new LineBatch(lineNumber, BATCH_SIZE);
+        try {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    int length = i - start;
+                    if (pendingLength + length > pending.length) {
+                        pending = Arrays.copyOf(pending, Math.max(pendingLength + length, pending.length * 2));
+                    }
+                    System.arraycopy(buffer, start, pending, pendingLength, length);
+                    pendingLength += length;
+                    offset += i - start + 1;
+                    batch.add(decode(pending, pendingLength), offset);
+                    pendingLength = 0;
+                    start = i + 1;
+                    lineNumber++;
+                    if (batch.size == BATCH_SIZE) {
+                        lines.put(batch);
+                        batch = new LineBatch(lineNumber, BATCH_SIZE);
+                    }
+                }
+                // Keep the unterminated tail for the next read
+                int length = read - start;
+                if (pendingLength + length > pending.length) {
+                    pending = Arrays.copyOf(pending, Math.max(pendingLength + length, pending.length * 2));
+                }
+                System.arraycopy(buffer, start, pending, pendingLength, length);
+                pendingLength += length;
+                offset += length;
+            }
+            if (pendingLength > 0) {
+                batch.add(decode(pending, pendingLength), offset);
+            }
+            if (batch.size > 0) {
+                lines.put(batch);
+            }
+        } catch (IOException e) {
+            readError = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            lines.put(END_OF_LINES);
+        } catch (InterruptedException e) {
+            // Execution has already stopped; nobody is waiting for the marker
+        }
+    }
+
+    private static String decode(byte[] bytes, int length) {
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parser stage: turn each batch of lines into commands.
+     */
+    private void parseLines() {
+        try {
+            while (true) {
+                LineBatch batch = lines.take();
+                if (batch == END_OF_LINES) {
+                    break;
+                }
+                List<Command> parsed = new ArrayList<>(batch.size);
+                for (int i = 0; i < batch.size; i++) {
+                    parsed.add(Command.parse(batch.lines[i], batch.firstLineNumber + i, batch.endOffsets[i]));
+                }
+                commands.put(parsed);
+            }
+            commands.put(END_OF_COMMANDS);
+        } catch (InterruptedException e) {
+            // Execution has stopped
+        }
+    }
+
+    /**
+     * Consecutive lines with the byte offset just past each one.
+     */
+    private static class LineBatch {
+        final long firstLineNumber;
+        final String[] lines;
+        final long[] endOffsets;
+        int size;
+
+        LineBatch(long firstLineNumber, int capacity) {
+            this.firstLineNumber = firstLineNumber;
+            this.lines = new String[capacity];
+            this.endOffsets = new long[capacity];
+        }
+
+        void add(String line, long endOffset) {
+            lines[size] = line;
+            endOffsets[size] = endOffset;
+            size++;
+        }
+    }
+}
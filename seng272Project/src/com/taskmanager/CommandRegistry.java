@@ -0,0 +1,87 @@
+package com.taskmanager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps command types to their handlers and keeps a call count and latency
+ * histogram for every type.
+ */
+public class CommandRegistry {
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private static class Entry {
+        final CommandHandler handler;
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        Entry(CommandHandler handler) {
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Register the handler for a command type. Must be called before commands are dispatched.
+     * @param type Command type, the first token of the command line
+     * @param handler Handler to run
+     */
+    public void register(String type, CommandHandler handler) {
+        entries.put(type, new Entry(handler));
+    }
+
+    /**
+     * Run the handler for a command and record how long it took, including
+     * runs that end in an exception.
+     * @param family Family the command applies to
+     * @param command Command to run
+     * @return false if no handler is registered for the command type
+     */
+    public boolean dispatch(Family family, Command command) {
+        Entry entry = entries.get(command.getType());
+        if (entry == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            entry.handler.handle(family, command);
+        } finally {
+            entry.latency.record(System.nanoTime() - start);
+        }
+        return true;
+    }
+
+    /**
+     * Print count, total time and p50/p99/max latency for every command type
+     * that has run, slowest total first.
+     */
+    public void printStats() {
+        List<Map.Entry<String, Entry>> used = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().latency.getCount() > 0) {
+                used.add(entry);
+            }
+        }
+        used.sort(Comparator.comparingLong(
+                (Map.Entry<String, Entry> entry) -> entry.getValue().latency.getTotalNanos()).reversed());
+
+        System.out.println("\nCommand statistics:");
+        if (used.isEmpty()) {
+            System.out.println("No commands executed yet.");
+            return;
+        }
+        System.out.println(String.format("%-24s %10s %12s %10s %10s %10s",
+                "Command", "Count", "Total ms", "p50 us", "p99 us", "Max us"));
+        for (Map.Entry<String, Entry> entry : used) {
+            LatencyHistogram latency = entry.getValue().latency;
+            System.out.println(String.format("%-24s %10d %12.2f %10.1f %10.1f %10.1f",
+                    entry.getKey(),
+                    latency.getCount(),
+                    latency.getTotalNanos() / 1e6,
+                    latency.getPercentile(50) / 1e3,
+                    latency.getPercentile(99) / 1e3,
+                    latency.getMaxNanos() / 1e3));
+        }
+    }
+}
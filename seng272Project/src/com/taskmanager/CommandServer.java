@@ -0,0 +1,189 @@
+package com.taskmanager;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Daemon front end: accepts command sessions on a loopback socket or on a
+ * stream such as stdin or a named pipe, and keeps the managers loaded between
+ * sessions. Each session reads one command per line and gets that command's
+ * output back, followed by a line holding a single ".". QUIT ends the session
+ * and SHUTDOWN stops the daemon. Sessions run on virtual threads where the JVM
+ * has them and on a cached thread pool otherwise.
+ */
+public class CommandServer {
+    private static final byte[] END_OF_RESPONSE = ".\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Decides where a command runs: calls work with the command's family on the
+     * thread that owns that family.
+     */
+    public interface Router {
+        void execute(Command command, Consumer<Family> work);
+    }
+
+    private final Router router;
+    private final BiConsumer<Family, Command> handler;
+    private final ExecutorService sessions = newSessionExecutor();
+    private volatile ServerSocket serverSocket;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private volatile boolean running = true;
+
+    /**
+     * @param router Chooses the family and thread for each command
+     * @param handler Executes a command against a family
+     */
+    public CommandServer(Router router, BiConsumer<Family, Command> handler) {
+        this.router = router;
+        this.handler = handler;
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() needs Java 21; look it up at runtime
+    private static ExecutorService newSessionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "command-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Accept sessions on a loopback port until SHUTDOWN.
+     * @param port TCP port on 127.0.0.1
+     * @throws IOException if the port cannot be opened
+     */
+    public void serveSocket(int port) throws IOException {
+        try (ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            serverSocket = socket;
+            Log.info("Daemon listening on {}", socket.getLocalSocketAddress());
+            while (running) {
+                Socket client;
+                try {
+                    client = socket.accept();
+                } catch (SocketException e) {
+                    // Closed by shutdown()
+                    break;
+                }
+                clients.add(client);
+                sessions.execute(() -> {
+                    try (Socket session = client) {
+                        session.setTcpNoDelay(true);
+                        runSession(session.getInputStream(), session.getOutputStream());
+                    } catch (IOException e) {
+                        if (running) {
+                            System.err.println("Session error: " + e.getMessage());
+                        }
+                    } finally {
+                        clients.remove(client);
+                    }
+                });
+            }
+        } finally {
+            stopSessions();
+        }
+    }
+
+    /**
+     * Serve a single session on the given streams, such as stdin and stdout or a named pipe.
+     * @param in Command input
+     * @param out Response output
+     * @throws IOException if the streams fail
+     */
+    public void serveStream(InputStream in, OutputStream out) throws IOException {
+        try {
+            runSession(in, out);
+        } finally {
+            stopSessions();
+        }
+    }
+
+    private void runSession(InputStream in, OutputStream rawOut) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        OutputStream out = new BufferedOutputStream(rawOut);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null && running) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.equals("QUIT")) {
+                break;
+            }
+            if (trimmed.equals("SHUTDOWN")) {
+                out.write(END_OF_RESPONSE);
+                out.flush();
+                shutdown();
+                break;
+            }
+
+            Command command = Command.parse(line, lineNumber, -1);
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            router.execute(command, family -> SessionOutput.run(out, () -> {
+                try {
+                    handler.accept(family, command);
+                } finally {
+                    done.complete(null);
+                }
+            }));
+            done.join();
+            out.write(END_OF_RESPONSE);
+            out.flush();
+        }
+        out.flush();
+    }
+
+    /**
+     * Stop accepting sessions and disconnect idle clients. A session that is
+     * running a command finishes it first.
+     */
+    public void shutdown() {
+        running = false;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing daemon socket: " + e.getMessage());
+            }
+        }
+        for (Socket client : clients) {
+            try {
+                // Unblocks a session waiting for input without cutting off a response
+                client.shutdownInput();
+            } catch (IOException e) {
+                // Already disconnected
+            }
+        }
+    }
+
+    private void stopSessions() {
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
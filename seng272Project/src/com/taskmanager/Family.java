@@ -0,0 +1,185 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+/**
+ * Everything one family's commands work on: its tasks, wishes, achievements
+ * and child, all kept in one data directory. Each part is created on first
+ * use, so a command batch that never touches wishes or achievements does not
+ * load their files.
+ */
+public class Family implements Persistable {
+    private final String id;
+    private final File dir;
+    private final Supplier<Child> childSupplier;
+    // Created on first use; written under this, read without locking
+    private volatile TaskManager taskManager;
+    private volatile WishManager wishManager;
+    private volatile Child child;
+    private volatile ReminderSystem reminderSystem;
+    private volatile AchievementManager achievementManager;
+    // Applied to managers created after setAutoFlush() was called
+    private boolean autoFlush = true;
+
+    /**
+     * Prepare a family whose data is kept in a directory. Nothing is loaded yet.
+     * @param id Family key, or null for the default family
+     * @param dir Directory holding the family's data files
+     * @param child Supplies the family's child on first use
+     */
+    public Family(String id, File dir, Supplier<Child> child) {
+        this.id = id;
+        this.dir = dir;
+        this.childSupplier = child;
+    }
+
+    /**
+     * The family kept directly in Settings.dataDir().
+     * @return The default family
+     */
+    public static Family openDefault() {
+        return new Family(null, Settings.dataDir(), Child::new);
+    }
+
+    /**
+     * Save pending changes and release open files of the parts that were loaded.
+     */
+    public synchronized void close() {
+        if (wishManager != null) {
+            wishManager.flush();
+        }
+        if (achievementManager != null) {
+            achievementManager.flush();
+            if (child != null) {
+                // The child can outlive this family, e.g. in FamilyRuntime
+                child.removeProgressListener(achievementManager);
+            }
+        }
+        if (taskManager != null) {
+            taskManager.close();
+        }
+    }
+
+    @Override
+    public synchronized void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+        if (taskManager != null) {
+            taskManager.setAutoFlush(autoFlush);
+        }
+        if (wishManager != null) {
+            wishManager.setAutoFlush(autoFlush);
+        }
+        if (achievementManager != null) {
+            achievementManager.setAutoFlush(autoFlush);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (taskManager != null) {
+            taskManager.flush();
+        }
+        if (wishManager != null) {
+            wishManager.flush();
+        }
+        if (achievementManager != null) {
+            achievementManager.flush();
+        }
+    }
+
+    public String getId() { return id; }
+    public File getDir() { return dir; }
+
+    public TaskManager getTaskManager() {
+        TaskManager manager = taskManager;
+        return manager != null ? manager : loadTaskManager();
+    }
+
+    public WishManager getWishManager() {
+        WishManager manager = wishManager;
+        return manager != null ? manager : loadWishManager();
+    }
+
+    public Child getChild() {
+        Child current = child;
+        return current != null ? current : loadChild();
+    }
+
+    /**
+     * @return The child if a command has used it, otherwise null
+     */
+    public Child getLoadedChild() {
+        return child;
+    }
+
+    public ReminderSystem getReminderSystem() {
+        ReminderSystem system = reminderSystem;
+        return system != null ? system : loadReminderSystem();
+    }
+
+    public AchievementManager getAchievementManager() {
+        AchievementManager manager = achievementManager;
+        return manager != null ? manager : loadAchievementManager();
+    }
+
+    private synchronized TaskManager loadTaskManager() {
+        if (taskManager == null) {
+            TaskManager manager = new TaskManager(Storages.tasks(dir), Storages.taskChangeLog(dir));
+            if (!autoFlush) {
+                manager.setAutoFlush(false);
+            }
+            taskManager = manager;
+        }
+        return taskManager;
+    }
+
+    private synchronized WishManager loadWishManager() {
+        if (wishManager == null) {
+            WishManager manager = new WishManager(Storages.wishes(dir));
+            if (!autoFlush) {
+                manager.setAutoFlush(false);
+            }
+            wishManager = manager;
+        }
+        return wishManager;
+    }
+
+    private synchronized Child loadChild() {
+        if (child == null) {
+            child = childSupplier.get();
+        }
+        return child;
+    }
+
+    private synchronized ReminderSystem loadReminderSystem() {
+        if (reminderSystem == null) {
+            reminderSystem = new ReminderSystem();
+        }
+        return reminderSystem;
+    }
+
+    private synchronized AchievementManager loadAchievementManager() {
+        if (achievementManager == null) {
+            AchievementManager manager = new AchievementManager(new File(dir, "Achievements.txt"));
+            if (!autoFlush) {
+                manager.setAutoFlush(false);
+            }
+            getChild().addProgressListener(manager);
+            achievementManager = manager;
+            replayRuleHistory();
+        }
+        return achievementManager;
+    }
+
+    /**
+     * Recompute the totals of the achievement rules from the approved tasks
+     * and wishes. Loads tasks and wishes only if there are rules.
+     */
+    public synchronized void replayRuleHistory() {
+        AchievementManager manager = getAchievementManager();
+        if (manager.hasRules()) {
+            manager.replayHistory(getTaskManager().getAllTasks(), getWishManager().getAllWishes());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Hosts many families in one process. Each family keeps its data under
+ * families/&lt;key&gt; in the data directory and is only loaded once a command for it
+ * arrives. All commands for a family run in order on the same executor lane,
+ * so a family's managers are only ever used by one thread at a time and
+ * different families never contend. Once more than a set number of families
+ * are loaded, the least recently used one is saved and unloaded, child
+ * included: the child's counters go to Child.properties in the family's
+ * directory and are read back when the family is next used.
+ */
+public class FamilyRuntime implements AutoCloseable {
+    private static final String CHILD_FILE = "Child.properties";
+
+    private final File baseDir;
+    private final int maxLoaded;
+    private final PartitionedExecutor lanes;
+    private final Map<String, Family> loaded = new ConcurrentHashMap<>();
+    // Family keys, least recently used first; guarded by this
+    private final LinkedHashMap<String, Boolean> recentlyUsed = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param baseDir Directory holding one subdirectory per family
+     * @param laneCount Number of executor lanes shared by all families
+     * @param maxLoaded Families kept loaded before the least recently used is unloaded
+     */
+    public FamilyRuntime(File baseDir, int laneCount, int maxLoaded) {
+        this.baseDir = baseDir;
+        this.maxLoaded = Math.max(1, maxLoaded);
+        this.lanes = new PartitionedExecutor(laneCount);
+    }
+
+    /**
+     * Run work against a family on its lane, loading the family first if needed.
+     * @param familyId Family key
+     * @param work Work to run after all earlier work for the family
+     */
+    public synchronized void execute(String familyId, Consumer<Family> work) {
+        recentlyUsed.put(familyId, Boolean.TRUE);
+        lanes.execute(familyId, () -> work.accept(load(familyId)));
+
+        if (recentlyUsed.size() > maxLoaded) {
+            Iterator<String> eldest = recentlyUsed.keySet().iterator();
+            String victim = eldest.next();
+            eldest.remove();
+            // Unload on the victim's lane, after its queued work
+            lanes.execute(victim, () -> {
+                Family family = loaded.remove(victim);
+                if (family != null) {
+                    unload(family);
+                }
+            });
+        }
+    }
+
+    // Only runs on the family's own lane, so no other thread loads the same key
+    private Family load(String familyId) {
+        Family family = loaded.get(familyId);
+        if (family == null) {
+            File dir = new File(baseDir, familyId);
+            family = new Family(familyId, dir, () -> loadChild(dir));
+            loaded.put(familyId, family);
+        }
+        return family;
+    }
+
+    private static Child loadChild(File dir) {
+        Child child = new Child();
+        File file = new File(dir, CHILD_FILE);
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                Properties properties = new Properties();
+                properties.load(in);
+                child.restore(properties, "");
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error loading child from " + file + ": " + e.getMessage());
+            }
+        }
+        return child;
+    }
+
+    // Save the family and its child, if a command used it
+    private static void unload(Family family) {
+        family.close();
+        Child child = family.getLoadedChild();
+        if (child == null) {
+            return;
+        }
+        File file = new File(family.getDir(), CHILD_FILE);
+        File temp = new File(file.getPath() + ".tmp");
+        Properties properties = new Properties();
+        child.store(properties, "");
+        try {
+            Files.createDirectories(family.getDir().toPath());
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                properties.store(out, "Child of family " + family.getId());
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving child to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Number of families currently loaded
+     */
+    public int getLoadedCount() {
+        return loaded.size();
+    }
+
+    /**
+     * Finish all queued work, then save and unload every family.
+     */
+    @Override
+    public void close() {
+        lanes.close();
+        for (Family family : loaded.values()) {
+            unload(family);
+        }
+        loaded.clear();
+    }
+}
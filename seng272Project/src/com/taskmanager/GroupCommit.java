@@ -0,0 +1,71 @@
+package com.taskmanager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batches persistence while replaying commands: managers only mark themselves
+ * dirty, and everything is flushed once every N commands, once T milliseconds
+ * have passed since the last flush, or at the end of input, whichever comes first.
+ * At most the commands since the last flush are exposed to a crash.
+ */
+public class GroupCommit {
+    private final List<Persistable> participants = new ArrayList<>();
+    private final int maxCommands;
+    private final long maxMillis;
+    private int pendingCommands;
+    private long lastFlush;
+    private int flushCount;
+
+    /**
+     * @param maxCommands Flush after this many commands
+     * @param maxMillis Flush once this much time has passed since the last flush
+     */
+    public GroupCommit(int maxCommands, long maxMillis) {
+        this.maxCommands = maxCommands;
+        this.maxMillis = maxMillis;
+        this.lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * Switch a manager to deferred saving and include it in every flush.
+     * @param participant Manager to batch
+     */
+    public void register(Persistable participant) {
+        participant.setAutoFlush(false);
+        participants.add(participant);
+    }
+
+    /**
+     * Record that one command was executed and flush if a limit was reached.
+     */
+    public void commandProcessed() {
+        pendingCommands++;
+        if (pendingCommands >= maxCommands || System.currentTimeMillis() - lastFlush >= maxMillis) {
+            flush();
+        }
+    }
+
+    /**
+     * Flush every registered manager.
+     */
+    public void flush() {
+        for (Persistable participant : participants) {
+            participant.flush();
+        }
+        pendingCommands = 0;
+        lastFlush = System.currentTimeMillis();
+        flushCount++;
+    }
+
+    /**
+     * Flush remaining changes and return the managers to saving on every change.
+     */
+    public void close() {
+        flush();
+        for (Persistable participant : participants) {
+            participant.setAutoFlush(true);
+        }
+        Log.info("Group commit: {} flushes.", flushCount);
+    }
+}
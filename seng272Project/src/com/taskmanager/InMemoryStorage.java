@@ -0,0 +1,29 @@
+package com.taskmanager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps records in memory only, for benchmarks and load tests that should
+ * not touch the disk. Nothing survives the process.
+ * @param <T> Record type
+ */
+public class InMemoryStorage<T> implements Storage<T> {
+    private List<T> records = new ArrayList<>();
+
+    @Override
+    public List<T> load() {
+        return new ArrayList<>(records);
+    }
+
+    @Override
+    public void save(Collection<T> records) {
+        this.records = new ArrayList<>(records);
+    }
+
+    @Override
+    public String getLocation() {
+        return "memory";
+    }
+}
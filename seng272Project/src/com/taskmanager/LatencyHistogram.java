@@ -0,0 +1,83 @@
+package com.taskmanager;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds. Each power of two is split
+ * into 8 buckets, so a reported percentile is at most 12.5% above the true value
+ * while recording stays a constant-time array increment.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below this get one bucket each
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Record one duration.
+     * @param nanos Duration in nanoseconds; negative values count as 0
+     */
+    public synchronized void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucketOf(value)]++;
+        count++;
+        totalNanos += value;
+        if (value > maxNanos) {
+            maxNanos = value;
+        }
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into a bucket
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 100
+     * @return Duration in nanoseconds that this share of the recordings did not exceed
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+}
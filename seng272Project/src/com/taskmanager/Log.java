@@ -0,0 +1,101 @@
+package com.taskmanager;
+
+/**
+ * Leveled logging for diagnostic messages. Messages at or above the threshold
+ * from Settings.logLevel() are written to System.out (System.err for WARN and
+ * ERROR), either directly or through an AsyncLogSink when Settings.logAsync()
+ * is set. Messages use "{}" placeholders. A call below the threshold returns
+ * after one comparison without formatting or allocating anything, as long as
+ * its arguments are existing objects or integers (TRACE, DEBUG and INFO have
+ * overloads for every mix of long and Object arguments, so nothing is boxed);
+ * use isEnabled() to guard calls whose arguments are expensive to compute.
+ */
+public final class Log {
+    private static volatile int threshold = Settings.logLevel().ordinal();
+    private static final AsyncLogSink ASYNC_SINK = Settings.logAsync()
+            ? AsyncLogSink.start(Settings.logBufferSize()) : null;
+
+    private Log() {
+    }
+
+    /**
+     * Change the threshold at runtime.
+     * @param level Lowest level that is written
+     */
+    public static void setLevel(LogLevel level) {
+        threshold = level.ordinal();
+    }
+
+    public static boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public static void trace(String message) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, message); }
+    public static void trace(String format, Object arg) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, format, arg, null); }
+    public static void trace(String format, long arg) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, format, arg, null); }
+    public static void trace(String format, Object arg1, Object arg2) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, format, arg1, arg2); }
+    public static void trace(String format, long arg1, long arg2) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, format, arg1, arg2); }
+    public static void trace(String format, long arg1, Object arg2) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, format, arg1, arg2); }
+    public static void trace(String format, Object arg1, long arg2) { if (isEnabled(LogLevel.TRACE)) write(LogLevel.TRACE, format, arg1, arg2); }
+
+    public static void debug(String message) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, message); }
+    public static void debug(String format, Object arg) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, format, arg, null); }
+    public static void debug(String format, long arg) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, format, arg, null); }
+    public static void debug(String format, Object arg1, Object arg2) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, format, arg1, arg2); }
+    public static void debug(String format, long arg1, long arg2) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, format, arg1, arg2); }
+    public static void debug(String format, long arg1, Object arg2) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, format, arg1, arg2); }
+    public static void debug(String format, Object arg1, long arg2) { if (isEnabled(LogLevel.DEBUG)) write(LogLevel.DEBUG, format, arg1, arg2); }
+
+    public static void info(String message) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, message); }
+    public static void info(String format, Object arg) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, format, arg, null); }
+    public static void info(String format, long arg) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, format, arg, null); }
+    public static void info(String format, Object arg1, Object arg2) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, format, arg1, arg2); }
+    public static void info(String format, long arg1, long arg2) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, format, arg1, arg2); }
+    public static void info(String format, long arg1, Object arg2) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, format, arg1, arg2); }
+    public static void info(String format, Object arg1, long arg2) { if (isEnabled(LogLevel.INFO)) write(LogLevel.INFO, format, arg1, arg2); }
+
+    public static void warn(String message) { if (isEnabled(LogLevel.WARN)) write(LogLevel.WARN, message); }
+    public static void warn(String format, Object arg) { if (isEnabled(LogLevel.WARN)) write(LogLevel.WARN, format, arg, null); }
+    public static void warn(String format, Object arg1, Object arg2) { if (isEnabled(LogLevel.WARN)) write(LogLevel.WARN, format, arg1, arg2); }
+
+    public static void error(String message) { if (isEnabled(LogLevel.ERROR)) write(LogLevel.ERROR, message); }
+    public static void error(String format, Object arg) { if (isEnabled(LogLevel.ERROR)) write(LogLevel.ERROR, format, arg, null); }
+    public static void error(String format, Object arg1, Object arg2) { if (isEnabled(LogLevel.ERROR)) write(LogLevel.ERROR, format, arg1, arg2); }
+
+    private static void write(LogLevel level, String format, Object arg1, Object arg2) {
+        write(level, format(format, arg1, arg2));
+    }
+
+    // Replace the first two "{}" with the arguments
+    private static String format(String format, Object arg1, Object arg2) {
+        StringBuilder sb = new StringBuilder(format.length() + 32);
+        int start = 0;
+        int argument = 0;
+        int placeholder;
+        while (argument < 2 && (placeholder = format.indexOf("{}", start)) >= 0) {
+            sb.append(format, start, placeholder).append(argument == 0 ? arg1 : arg2);
+            start = placeholder + 2;
+            argument++;
+        }
+        return sb.append(format, start, format.length()).toString();
+    }
+
+    private static void write(LogLevel level, String message) {
+        if (ASYNC_SINK != null) {
+            ASYNC_SINK.publish(level, message);
+        } else if (level.ordinal() >= LogLevel.WARN.ordinal()) {
+            System.err.println(message);
+        } else {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * Write out any messages still queued in the asynchronous sink.
+     */
+    public static void flush() {
+        if (ASYNC_SINK != null) {
+            ASYNC_SINK.flush();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.taskmanager;
+
+/**
+ * Severity of a log message, from the most detailed to the most severe.
+ * OFF is only used as a threshold and disables all logging.
+ */
+public enum LogLevel {
+    TRACE("Trace"),
+    DEBUG("Debug"),
+    INFO("Info"),
+    WARN("Warn"),
+    ERROR("Error"),
+    OFF("Off");
+
+    private final String displayName;
+
+    LogLevel(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Convert a string to a LogLevel enum value.
+     * @param levelStr The string representation of the level
+     * @return The corresponding LogLevel or TRACE if not found
+     */
+    public static LogLevel fromString(String levelStr) {
+        if (levelStr == null || levelStr.isEmpty()) {
+            return TRACE;
+        }
+
+        for (LogLevel level : LogLevel.values()) {
+            if (level.name().equalsIgnoreCase(levelStr) ||
+                level.getDisplayName().equalsIgnoreCase(levelStr)) {
+                return level;
+            }
+        }
+        return TRACE;
+    }
+}
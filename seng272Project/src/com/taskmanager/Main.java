@@ -2,193 +2,258 @@ package com.taskmanager;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Scanner;
 
 public class Main {
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
-    
-    private static TaskManager taskManager;
-    private static WishManager wishManager;
-    private static Child child;
-    private static ReminderSystem reminderSystem;
-    private static AchievementManager achievementManager;
+    private static Family defaultFamily;
+    // Families addressed with an "@key" prefix; created on first use
+    private static FamilyRuntime families;
+    private static CommandRegistry registry;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--daemon")) {
+            runDaemon(args.length > 1 ? args[1] : null);
+            return;
+        }
         try {
-            // Read commands from Commands.txt
-            File commandFile = new File("C:\\Java\\Yusuf Ali\\seng272Project\\Commands.txt");
+            // Read commands from the file given on the command line, or Commands.txt in the data directory
+            File commandFile = args.length > 0 ? new File(args[0]) : new File(Settings.dataDir(), "Commands.txt");
             System.out.println("Reading commands from: " + commandFile.getAbsolutePath());
-            Scanner scanner = new Scanner(commandFile);
-
-            // Initialize managers
-            taskManager = new TaskManager();
-            wishManager = new WishManager();
-            child = new Child();
-            reminderSystem = new ReminderSystem();
-            achievementManager = new AchievementManager();
-
-            // Process commands
-            while (scanner.hasNextLine()) {
-                String command = scanner.nextLine();
-                System.out.println("\nProcessing command: " + command);
-                processCommand(command, taskManager, wishManager, child);
+            CommandPipeline pipeline = new CommandPipeline(commandFile, Settings.pipelineQueueBatches());
+
+            // Managers are loaded when a command first uses them
+            defaultFamily = Family.openDefault();
+            registry = createRegistry();
+
+            // Resumable mode: checkpoint every N commands and continue from the last checkpoint
+            ReplayCheckpoint checkpoint = null;
+            if (Settings.checkpointCommands() > 0) {
+                checkpoint = new ReplayCheckpoint(new File(Settings.dataDir(), "checkpoint"),
+                        commandFile, Settings.checkpointCommands());
+                long[] position = checkpoint.restore(defaultFamily);
+                if (position != null) {
+                    System.out.println("Resuming from checkpoint at line " + position[1]);
+                    pipeline.startAt(position[0], position[1]);
+                }
+                // Data files are saved with each checkpoint
+                defaultFamily.setAutoFlush(false);
+            }
+
+            // Batch mode: save once every N commands instead of after every change
+            GroupCommit groupCommit = null;
+            if (checkpoint != null && Settings.groupCommitCommands() > 0) {
+                Log.info("Group commit is off while checkpointing; data files are saved with each checkpoint.");
+            } else if (Settings.groupCommitCommands() > 0) {
+                groupCommit = new GroupCommit(Settings.groupCommitCommands(), Settings.groupCommitMillis());
+                groupCommit.register(defaultFamily);
             }
 
-            scanner.close();
+            // Process commands; later lines are read and parsed while earlier ones execute
+            final GroupCommit commit = groupCommit;
+            final ReplayCheckpoint replayCheckpoint = checkpoint;
+            logStartupTime();
+            pipeline.run(command -> {
+                if (command.getFamily() != null) {
+                    if (replayCheckpoint != null) {
+                        replayCheckpoint.stop(command, defaultFamily);
+                    }
+                    dispatchFamilyCommand(command);
+                } else {
+                    Log.debug("\nProcessing command: {}", command.getLine());
+                    processCommand(command, defaultFamily);
+                }
+                if (commit != null) {
+                    commit.commandProcessed();
+                }
+                if (replayCheckpoint != null && replayCheckpoint.commandProcessed(command)) {
+                    replayCheckpoint.save(defaultFamily);
+                }
+            });
+
+            if (families != null) {
+                families.close();
+            }
+
+            if (groupCommit != null) {
+                groupCommit.close();
+            }
+            defaultFamily.close();
+            if (checkpoint != null) {
+                checkpoint.complete();
+            }
+            registry.printStats();
             System.out.println("\nAll commands processed successfully!");
+            Log.flush();
         } catch (FileNotFoundException e) {
             System.err.println("Error: Commands.txt file not found!");
             e.printStackTrace();
+        } catch (IOException e) {
+            System.err.println("Error reading commands: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 
-    private static void processCommand(String command, TaskManager taskManager,
-                                       WishManager wishManager, Child child) {
-        String[] parts = command.split(" ");
-        String commandType = parts[0];
+    // Time from JVM start until the first command can run, for tuning short batches
+    private static void logStartupTime() {
+        if (!Log.isEnabled(LogLevel.INFO)) {
+            return;
+        }
+        ProcessHandle.current().info().startInstant().ifPresent(start ->
+                Log.info("Startup took {} ms", System.currentTimeMillis() - start.toEpochMilli()));
+    }
+
+    /**
+     * Keep the managers loaded and serve command sessions until a session sends
+     * SHUTDOWN. With endpoint "-" a single session is read from stdin (or a named
+     * pipe redirected to it) and answered on stdout; otherwise sessions connect
+     * to the loopback port from Settings.daemonPort().
+     * @param endpoint "-" for stdin, or null for the socket
+     */
+    private static void runDaemon(String endpoint) {
+        boolean stdin = "-".equals(endpoint);
+        OutputStream console = System.out;
+        SessionOutput.install();
+
+        defaultFamily = Family.openDefault();
+        registry = createRegistry();
+        families = newFamilyRuntime();
+        // The default family gets its own lane so sessions never use it concurrently
+        PartitionedExecutor defaultLane = new PartitionedExecutor(1);
+
+        CommandServer server = new CommandServer((command, work) -> {
+            if (command.getFamily() != null) {
+                families.execute(command.getFamily(), work);
+            } else {
+                defaultLane.execute("", () -> work.accept(defaultFamily));
+            }
+        }, (family, command) -> processCommand(command, family));
 
         try {
-            switch (commandType) {
-                case "ADD_TASK1":
-                    processAddTask1(parts, taskManager);
-                    break;
-                case "ADD_TASK2":
-                    processAddTask2(parts, taskManager);
-                    break;
-                case "LIST_ALL_TASKS":
-                    processListAllTasks(parts, taskManager);
-                    break;
-                case "LIST_TASKS_BY_CATEGORY":
-                    processListTasksByCategory(parts, taskManager);
-                    break;
-                case "LIST_TASKS_BY_PRIORITY":
-                    processListTasksByPriority(parts, taskManager);
-                    break;
-                case "LIST_ALL_WISHES":
-                    processListAllWishes(wishManager);
-                    break;
-                case "TASK_DONE":
-                    processTaskDone(parts, taskManager);
-                    break;
-                case "TASK_CHECKED":
-                    processTaskChecked(parts, taskManager, child);
-                    break;
-                case "ADD_WISH1":
-                    processAddWish1(parts, wishManager);
-                    break;
-                case "ADD_WISH2":
-                    processAddWish2(parts, wishManager);
-                    break;
-                case "ADD_BUDGET_COIN":
-                    processAddBudgetCoin(parts, child);
-                    break;
-                case "WISH_CHECKED":
-                    processWishChecked(parts, wishManager, child);
-                    break;
-                case "PRINT_BUDGET":
-                    processPrintBudget(child);
-                    break;
-                case "PRINT_STATUS":
-                    processPrintStatus(child);
-                    break;
-                case "SHOW_REMINDERS":
-                    processShowReminders(parts, taskManager, wishManager, reminderSystem);
-                    break;
-                case "SHOW_ACHIEVEMENTS":
-                    processShowAchievements(achievementManager);
-                    break;
-                case "CHECK_ACHIEVEMENTS":
-                    processCheckAchievements(child, achievementManager);
-                    break;
-                default:
-                    System.err.println("Unknown command: " + commandType);
+            if (stdin) {
+                server.serveStream(System.in, console);
+            } else {
+                server.serveSocket(Settings.daemonPort());
             }
-        } catch (Exception e) {
-            System.err.println("Error processing command: " + command);
+        } catch (IOException e) {
+            System.err.println("Daemon error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            defaultLane.close();
+            families.close();
+            defaultFamily.close();
+            registry.printStats();
+            System.out.println("\nDaemon stopped.");
+            Log.flush();
         }
     }
 
-    private static void processAddTask1(String[] parts, TaskManager taskManager) {
-        // First, reconstruct the command parts properly
-        StringBuilder commandBuilder = new StringBuilder();
-        for (String part : parts) {
-            commandBuilder.append(part).append(" ");
+    /**
+     * Set up command handling without reading a command file, e.g. for a benchmark.
+     * @param family Family that unprefixed commands work on
+     */
+    static void initialize(Family family) {
+        defaultFamily = family;
+        registry = createRegistry();
+    }
+
+    private static FamilyRuntime newFamilyRuntime() {
+        return new FamilyRuntime(new File(Settings.dataDir(), "families"),
+                Settings.familyLanes(), Settings.maxLoadedFamilies());
+    }
+
+    /**
+     * Register a handler for every command type.
+     */
+    private static CommandRegistry createRegistry() {
+        CommandRegistry registry = new CommandRegistry();
+        registry.register("ADD_TASK1", (family, command) -> processAddTask(command.getTask(), family.getTaskManager()));
+        registry.register("ADD_TASK2", (family, command) -> processAddTask(command.getTask(), family.getTaskManager()));
+        registry.register("IMPORT_TASKS", (family, command) -> processImportTasks(command.getParts(), family.getTaskManager()));
+        registry.register("LIST_ALL_TASKS", (family, command) -> processListAllTasks(command.getParts(), family.getTaskManager()));
+        registry.register("LIST_TASKS_BY_CATEGORY", (family, command) -> processListTasksByCategory(command.getParts(), family.getTaskManager()));
+        registry.register("LIST_TASKS_BY_PRIORITY", (family, command) -> processListTasksByPriority(command.getParts(), family.getTaskManager()));
+        registry.register("LIST_TASKS", (family, command) -> processListTasks(command.getParts(), family.getTaskManager()));
+        registry.register("LIST_ALL_WISHES", (family, command) -> processListAllWishes(family.getWishManager()));
+        registry.register("TASK_DONE", (family, command) -> processTaskDone(command.getParts(), family.getTaskManager()));
+        registry.register("TASK_CHECKED", (family, command) -> processTaskChecked(command.getParts(), family.getTaskManager(), family.getChild()));
+        registry.register("ADD_WISH1", (family, command) -> processAddWish(command.getWish(), family.getWishManager()));
+        registry.register("ADD_WISH2", (family, command) -> processAddWish(command.getWish(), family.getWishManager()));
+        registry.register("ADD_BUDGET_COIN", (family, command) -> processAddBudgetCoin(command.getParts(), family.getChild()));
+        registry.register("WISH_CHECKED", (family, command) -> processWishChecked(command.getParts(), family.getWishManager(), family.getChild()));
+        registry.register("PRINT_BUDGET", (family, command) -> processPrintBudget(family.getChild()));
+        registry.register("PRINT_STATUS", (family, command) -> processPrintStatus(family.getChild()));
+        registry.register("PRINT_RATINGS", (family, command) -> processPrintRatings(family.getChild()));
+        registry.register("SHOW_REMINDERS", (family, command) -> processShowReminders(command.getParts(), family.getTaskManager(), family.getWishManager(), family.getReminderSystem()));
+        registry.register("SHOW_ACHIEVEMENTS", (family, command) -> processShowAchievements(family.getAchievementManager()));
+        registry.register("SHOW_PROGRESS", (family, command) -> processShowProgress(family.getAchievementManager(), family.getChild()));
+        registry.register("CHECK_ACHIEVEMENTS", (family, command) -> processCheckAchievements(family.getChild(), family.getAchievementManager()));
+        registry.register("STATS", (family, command) -> registry.printStats());
+        return registry;
+    }
+
+    /**
+     * Run a command for a family other than the default one on that family's lane.
+     * Commands for one family run in order; different families run in parallel.
+     */
+    private static void dispatchFamilyCommand(Command command) {
+        if (families == null) {
+            families = newFamilyRuntime();
         }
-        String fullCommand = commandBuilder.toString().trim();
-
-        // Split the command properly, preserving quoted strings
-        String[] properParts = fullCommand.split(" (?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-        String assignedBy = properParts[1];
-        String id = properParts[2];
-        String title = properParts[3].replace("\"", "");
-        String description = properParts[4].replace("\"", "");
-        String dateTimeStr = properParts[5] + "T" + properParts[6];
-        int points = Integer.parseInt(properParts[7]);
-
-        // Default category and priority
-        TaskCategory category = TaskCategory.OTHER;
-        TaskPriority priority = TaskPriority.MEDIUM;
-
-        // Check for category and priority in the command
-        for (int i = 8; i < properParts.length; i++) {
-            if (properParts[i].equals("CATEGORY") && i + 1 < properParts.length) {
-                category = TaskCategory.fromString(properParts[i + 1]);
+        families.execute(command.getFamily(), family -> {
+            Log.debug("\nProcessing command: {}", command.getLine());
+            processCommand(command, family);
+        });
+    }
+
+    static void processCommand(Command command, Family family) {
+        String[] parts = command.getParts();
+        String commandType = command.getType();
+
+        try {
+            if (command.getError() != null) {
+                throw command.getError();
             }
-            if (properParts[i].equals("PRIORITY") && i + 1 < properParts.length) {
-                priority = TaskPriority.fromString(properParts[i + 1]);
+            if (parts.length == 0) {
+                return;
             }
+            if (!registry.dispatch(family, command)) {
+                System.err.println("Unknown command: " + commandType);
+            }
+        } catch (Exception e) {
+            System.err.println("Error processing command: " + command.getLine());
+            e.printStackTrace();
         }
+    }
 
-        LocalDateTime deadline = LocalDateTime.parse(dateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        Task task = new Task(id, assignedBy, title, description, deadline, points, category, priority);
-        taskManager.addTask(task);
-        System.out.println("Added new task: " + task);
+    private static void processAddTask(Task task, TaskManager taskManager) {
+        if (taskManager.addTask(task)) {
+            System.out.println("Added new task: " + task);
+        } else {
+            System.out.println("Task " + task.getId() + " was not added because the ID is already in use");
+        }
     }
 
-    private static void processAddTask2(String[] parts, TaskManager taskManager) {
-        // First, reconstruct the command parts properly
-        StringBuilder commandBuilder = new StringBuilder();
-        for (String part : parts) {
-            commandBuilder.append(part).append(" ");
+    /**
+     * IMPORT_TASKS file
+     * Bulk-add the tasks in a CSV or TSV file; a relative path is resolved
+     * against the data directory.
+     */
+    private static void processImportTasks(String[] parts, TaskManager taskManager) {
+        if (parts.length < 2) {
+            System.out.println("Please specify a file to import");
+            return;
         }
-        String fullCommand = commandBuilder.toString().trim();
-
-        // Split the command properly, preserving quoted strings
-        String[] properParts = fullCommand.split(" (?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-        String assignedBy = properParts[1];
-        String id = properParts[2];
-        String title = properParts[3].replace("\"", "");
-        String description = properParts[4].replace("\"", "");
-        String startDateTimeStr = properParts[5] + "T" + properParts[6];
-        String endDateTimeStr = properParts[7] + "T" + properParts[8];
-        int points = Integer.parseInt(properParts[9]);
-
-        // Default category and priority
-        TaskCategory category = TaskCategory.OTHER;
-        TaskPriority priority = TaskPriority.MEDIUM;
-
-        // Check for category and priority in the command
-        for (int i = 10; i < properParts.length; i++) {
-            if (properParts[i].equals("CATEGORY") && i + 1 < properParts.length) {
-                category = TaskCategory.fromString(properParts[i + 1]);
-            }
-            if (properParts[i].equals("PRIORITY") && i + 1 < properParts.length) {
-                priority = TaskPriority.fromString(properParts[i + 1]);
-            }
+        File file = new File(parts[1]);
+        if (!file.isAbsolute()) {
+            file = new File(Settings.dataDir(), parts[1]);
+        }
+        try {
+            TaskImporter.printReport(file, new TaskImporter().importTasks(file, taskManager));
+        } catch (IOException e) {
+            System.err.println("Error importing tasks: " + e.getMessage());
         }
-
-        LocalDateTime startTime = LocalDateTime.parse(startDateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        LocalDateTime endTime = LocalDateTime.parse(endDateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        Task task = new Task(id, assignedBy, title, description, startTime, endTime, points, category, priority);
-        taskManager.addTask(task);
-        System.out.println("Added new task: " + task);
     }
 
     private static void processListAllTasks(String[] parts, TaskManager taskManager) {
@@ -243,6 +308,47 @@ public class Main {
         }
     }
 
+    /**
+     * LIST_TASKS [CATEGORY c1,c2] [PRIORITY p1,p2] [ASSIGNED_BY T,F] [STATUS PENDING,COMPLETED,APPROVED]
+     * Comma separated values are alternatives; different filters must all match.
+     */
+    private static void processListTasks(String[] parts, TaskManager taskManager) {
+        TaskQuery query = new TaskQuery();
+        for (int i = 1; i + 1 < parts.length; i += 2) {
+            String[] values = RecordCodec.split(parts[i + 1], ',');
+            for (String value : values) {
+                switch (parts[i]) {
+                    case "CATEGORY":
+                        query.category(TaskCategory.fromString(value));
+                        break;
+                    case "PRIORITY":
+                        query.priority(TaskPriority.fromString(value));
+                        break;
+                    case "ASSIGNED_BY":
+                        query.assignedBy(value);
+                        break;
+                    case "STATUS":
+                        query.status(TaskStatus.fromString(value));
+                        break;
+                    default:
+                        System.out.println("Unknown filter: " + parts[i]);
+                        return;
+                }
+            }
+        }
+
+        List<Task> tasks = taskManager.queryTasks(query);
+        System.out.println("\nTasks matching " + query + ":");
+        if (tasks.isEmpty()) {
+            System.out.println("No tasks found matching these filters.");
+        } else {
+            for (Task task : tasks) {
+                System.out.println(task);
+            }
+            System.out.println("Total: " + tasks.size() + " tasks");
+        }
+    }
+
     private static void processListAllWishes(WishManager wishManager) {
         System.out.println("All Wishes:");
         wishManager.getAllWishes().forEach(System.out::println);
@@ -257,59 +363,26 @@ public class Main {
     private static void processTaskChecked(String[] parts, TaskManager taskManager, Child child) {
         String taskId = parts[1];
         int rating = Integer.parseInt(parts[2]);
+        Task task = taskManager.getTask(taskId);
+        // Rules count approved tasks, as replayHistory does, so a repeated check is not counted again
+        boolean firstApproval = task != null && !task.isApproved();
         taskManager.approveTask(taskId, rating);
         child.addRating(rating);
         
         // Add task points to child's budget
-        int taskPoints = taskManager.getTaskPoints(taskId);
+        int taskPoints = task != null ? task.getPoints() : 0;
         child.addPoints(taskPoints);
         
         // Increment completed tasks count
         child.incrementCompletedTasksCount();
+        if (firstApproval) {
+            child.taskApproved(task);
+        }
         
         System.out.println("Approved task " + taskId + " with rating " + rating + " and added " + taskPoints + " points to budget");
     }
 
-    private static void processAddWish1(String[] parts, WishManager wishManager) {
-        // First, reconstruct the command parts properly
-        StringBuilder commandBuilder = new StringBuilder();
-        for (String part : parts) {
-            commandBuilder.append(part).append(" ");
-        }
-        String fullCommand = commandBuilder.toString().trim();
-
-        // Split the command properly, preserving quoted strings
-        String[] properParts = fullCommand.split(" (?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-        String id = properParts[1];
-        String title = properParts[2].replace("\"", "");
-        String description = properParts[3].replace("\"", "");
-
-        Wish wish = new Wish(id, title, description);
-        wishManager.addWish(wish);
-        System.out.println("Added new wish: " + wish);
-    }
-
-    private static void processAddWish2(String[] parts, WishManager wishManager) {
-        // First, reconstruct the command parts properly
-        StringBuilder commandBuilder = new StringBuilder();
-        for (String part : parts) {
-            commandBuilder.append(part).append(" ");
-        }
-        String fullCommand = commandBuilder.toString().trim();
-
-        // Split the command properly, preserving quoted strings
-        String[] properParts = fullCommand.split(" (?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-        String id = properParts[1];
-        String title = properParts[2].replace("\"", "");
-        String description = properParts[3].replace("\"", "");
-        String startDateTimeStr = properParts[4] + "T" + properParts[5];
-        String endDateTimeStr = properParts[6] + "T" + properParts[7];
-
-        LocalDateTime startTime = LocalDateTime.parse(startDateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        LocalDateTime endTime = LocalDateTime.parse(endDateTimeStr, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        Wish wish = new Wish(id, title, description, startTime, endTime);
+    private static void processAddWish(Wish wish, WishManager wishManager) {
         wishManager.addWish(wish);
         System.out.println("Added new wish: " + wish);
     }
@@ -326,10 +399,15 @@ public class Main {
 
         if (status.equals("APPROVED")) {
             int requiredLevel = Integer.parseInt(parts[3]);
+            Wish wish = wishManager.getWish(wishId);
+            boolean firstApproval = wish != null && !wish.isApproved();
             wishManager.approveWish(wishId, requiredLevel);
             
             // Increment approved wishes count
             child.incrementApprovedWishesCount();
+            if (firstApproval) {
+                child.wishApproved(wish);
+            }
             
             System.out.println("Approved wish " + wishId + " with required level " + requiredLevel);
         } else if (status.equals("REJECTED")) {
@@ -345,6 +423,20 @@ public class Main {
     private static void processPrintStatus(Child child) {
         System.out.println(child);
     }
+
+    private static void processPrintRatings(Child child) {
+        RatingStats ratings = child.getRatingStats();
+        System.out.println(String.format("Ratings: %d, average %.2f, median %d, 90th percentile %d",
+                ratings.getCount(), ratings.getAverage(), ratings.getMedian(), ratings.getPercentile(90)));
+        System.out.println(String.format("Last %d ratings: average %.2f", ratings.getRecentCount(), ratings.getRecentAverage()));
+        System.out.println(String.format("Last %d days: %d ratings, average %.2f",
+                RatingStats.DAYS, ratings.getLastDaysCount(), ratings.getLastDaysAverage()));
+        StringBuilder histogram = new StringBuilder("Histogram:");
+        for (int rating = 1; rating <= RatingStats.MAX_RATING; rating++) {
+            histogram.append(rating == 1 ? " " : ", ").append(rating).append(": ").append(ratings.getCount(rating));
+        }
+        System.out.println(histogram);
+    }
     
     private static void processShowReminders(String[] parts, TaskManager taskManager, 
                                           WishManager wishManager, ReminderSystem reminderSystem) {
@@ -366,6 +458,19 @@ public class Main {
         achievementManager.printAllAchievements();
     }
     
+    private static void processShowProgress(AchievementManager achievementManager, Child child) {
+        System.out.println("\n===== ACHIEVEMENT PROGRESS =====");
+        List<AchievementProgress> progress = child.getAchievementProgress(achievementManager);
+        if (progress.isEmpty()) {
+            System.out.println("All achievements unlocked! Congratulations!");
+        } else {
+            for (AchievementProgress entry : progress) {
+                System.out.println("- " + entry);
+            }
+        }
+        System.out.println("================================");
+    }
+
     private static void processCheckAchievements(Child child, AchievementManager achievementManager) {
         List<Achievement> newlyUnlocked = child.checkAchievements(achievementManager);
         
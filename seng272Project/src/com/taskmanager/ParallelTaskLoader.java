@@ -0,0 +1,198 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Loads a large record file by splitting it into chunks on line boundaries and
+ * parsing the chunks in parallel on a fork-join pool. Each chunk is read with
+ * positional reads into its own heap buffer rather than memory-mapped, since a
+ * mapping stays open until it is garbage collected and, on Windows, blocks
+ * replacing the file. Results are merged in file order.
+ */
+public class ParallelTaskLoader {
+    // Chunks smaller than this are not worth a separate fork-join task
+    private static final long MIN_CHUNK_BYTES = 1024 * 1024;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final ForkJoinPool pool;
+
+    public ParallelTaskLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelTaskLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Load all tasks from a Task.txt formatted file.
+     * @param file File to load
+     * @return Parsed tasks in file order; malformed lines are skipped
+     * @throws IOException if the file cannot be read
+     */
+    public List<Task> loadTasks(File file) throws IOException {
+        return load(file, TaskManager::parseTask);
+    }
+
+    /**
+     * Load and parse every non-empty line of a file.
+     * @param file File to load
+     * @param parser Converts a line to a record, or returns null to skip it
+     * @return Parsed records in file order
+     * @throws IOException if the file cannot be read
+     */
+    public <T> List<T> load(File file, Function<String, T> parser) throws IOException {
+        return load(file, 0, parser);
+    }
+
+    /**
+     * Load and parse every non-empty line of a file from a byte offset on,
+     * e.g. to skip a header line.
+     * @param file File to load
+     * @param start Byte offset of the first line to parse
+     * @param parser Converts a line to a record, or returns null to skip it
+     * @return Parsed records in file order
+     * @throws IOException if the file cannot be read
+     */
+    public <T> List<T> load(File file, long start, Function<String, T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = chunkBounds(channel, Math.min(start, size), size);
+
+            List<ForkJoinTask<List<T>>> chunks = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                if (bounds[i + 1] > bounds[i]) {
+                    chunks.add(pool.submit(new ChunkTask<>(channel, bounds[i], bounds[i + 1], parser)));
+                }
+            }
+
+            List<T> result = new ArrayList<>();
+            for (ForkJoinTask<List<T>> chunk : chunks) {
+                result.addAll(chunk.join());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Split the file into roughly equal chunks, moving every boundary forward
+     * to just past the next newline so no line is cut in two.
+     */
+    private long[] chunkBounds(FileChannel channel, long start, long size) throws IOException {
+        int parallelism = pool.getParallelism();
+        // Several chunks per worker balance uneven line lengths
+        long chunkSize = Math.max(MIN_CHUNK_BYTES, (size - start) / (parallelism * 4L));
+        int count = (int) Math.max(1, (size - start + chunkSize - 1) / chunkSize);
+
+        long[] bounds = new long[count + 1];
+        bounds[0] = start;
+        bounds[count] = size;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < count; i++) {
+            long position = Math.max(start + i * chunkSize, bounds[i - 1]);
+            bounds[i] = nextLineStart(channel, position, size, probe);
+        }
+        return bounds;
+    }
+
+    private long nextLineStart(FileChannel channel, long position, long size, ByteBuffer probe) throws IOException {
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final Function<String, T> parser;
+
+        ChunkTask(FileChannel channel, long start, long end, Function<String, T> parser) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.parser = parser;
+        }
+
+        @Override
+        protected List<T> compute() {
+            List<T> records = new ArrayList<>();
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_BYTES, Math.max(1, end - start)));
+            byte[] line = new byte[256];
+            int length = 0;
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read;
+                try {
+                    read = channel.read(buffer, position);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Error reading " + start + "-" + end + ": " + e.getMessage(), e);
+                }
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n') {
+                        addRecord(records, line, length);
+                        length = 0;
+                    } else {
+                        if (length == line.length) {
+                            byte[] grown = new byte[line.length * 2];
+                            System.arraycopy(line, 0, grown, 0, length);
+                            line = grown;
+                        }
+                        line[length++] = b;
+                    }
+                }
+            }
+            addRecord(records, line, length);
+            return records;
+        }
+
+        private void addRecord(List<T> records, byte[] line, int length) {
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                return;
+            }
+            String text = new String(line, 0, length, StandardCharsets.UTF_8);
+            if (text.trim().isEmpty()) {
+                return;
+            }
+            T record = parser.apply(text);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+    }
+}
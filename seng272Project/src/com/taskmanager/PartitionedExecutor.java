@@ -0,0 +1,86 @@
+package com.taskmanager;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs work on a fixed set of single-threaded lanes chosen by key, so work for
+ * the same key runs in submission order while different keys run in parallel.
+ * Keys should not share locked state, or their lanes wait for each other.
+ * barrier() waits until everything submitted so far has finished.
+ */
+public class PartitionedExecutor implements AutoCloseable {
+    private final ExecutorService[] lanes;
+
+    /**
+     * @param laneCount Number of worker lanes
+     */
+    public PartitionedExecutor(int laneCount) {
+        lanes = new ExecutorService[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(namedThreads("command-lane-" + i));
+        }
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Run work on the lane for a key.
+     * @param key Key, such as a family key
+     * @param work Work to run after all earlier work for the key
+     */
+    public void execute(String key, Runnable work) {
+        lanes[Math.floorMod(key.hashCode(), lanes.length)].execute(work);
+    }
+
+    /**
+     * Wait until all work submitted so far, on every lane, has finished.
+     */
+    public void barrier() {
+        Future<?>[] drained = new Future<?>[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            drained[i] = lanes[i].submit(() -> { });
+        }
+        for (Future<?> future : drained) {
+            await(future);
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // The work reports its own errors
+        }
+    }
+
+    /**
+     * Finish all submitted work and stop the threads.
+     */
+    @Override
+    public void close() {
+        barrier();
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                lane.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.taskmanager;
+
+/**
+ * A manager whose writes to disk can be deferred and flushed as a group.
+ */
+public interface Persistable {
+    /**
+     * Choose between saving on every change (the default) and only marking the
+     * manager dirty until flush() is called.
+     * @param autoFlush true to save on every change
+     */
+    void setAutoFlush(boolean autoFlush);
+
+    /**
+     * Write any deferred changes to disk.
+     */
+    void flush();
+}
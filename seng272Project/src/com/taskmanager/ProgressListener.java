@@ -0,0 +1,23 @@
+package com.taskmanager;
+
+/**
+ * Receives a child's progress whenever one of the values that achievements
+ * are measured against changes.
+ */
+public interface ProgressListener {
+    /**
+     * @param type Kind of achievement the value is compared with
+     * @param value New value, e.g. total points or the rounded average rating
+     */
+    void progressChanged(AchievementType type, int value);
+
+    /**
+     * @param task Task that was just approved and credited, with its rating set
+     */
+    default void taskApproved(Task task) {}
+
+    /**
+     * @param wish Wish that was just approved
+     */
+    default void wishApproved(Wish wish) {}
+}
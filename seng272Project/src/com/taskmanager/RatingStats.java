@@ -0,0 +1,264 @@
+package com.taskmanager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Running statistics over a child's task ratings, kept in a few primitive
+ * counters instead of the ratings themselves: the count and sum, a histogram
+ * with one bucket per point of the 1-5 scale, the last N ratings in a ring,
+ * and per-day totals for the last 7 days. Every query is constant-time no
+ * matter how many ratings were recorded.
+ *
+ * Ratings below 1 are counted in bucket 0 and ratings above 5 in bucket 5,
+ * so the median and percentiles are clamped to 0-5; the averages use the
+ * actual values.
+ */
+public class RatingStats {
+    public static final int MAX_RATING = 5;
+    public static final int DAYS = 7;
+
+    private final Clock clock;
+    private long count;
+    private long sum;
+    private final long[] histogram = new long[MAX_RATING + 1];
+
+    // The last recent.length ratings; recentNext is where the next one goes
+    private final int[] recent;
+    private int recentCount;
+    private int recentNext;
+    private long recentSum;
+
+    // Slot epochDay % DAYS holds the ratings of that day, if dayOf[slot] is that day
+    private final long[] dayOf = new long[DAYS];
+    private final long[] daySum = new long[DAYS];
+    private final int[] dayCount = new int[DAYS];
+
+    /**
+     * @param recentSize Number of latest ratings the recent average covers
+     * @param clock Clock that dates the ratings for the daily totals
+     */
+    public RatingStats(int recentSize, Clock clock) {
+        this.recent = new int[Math.max(1, recentSize)];
+        this.clock = clock;
+        Arrays.fill(dayOf, Long.MIN_VALUE);
+    }
+
+    public RatingStats() {
+        this(Settings.recentRatings(), Clock.systemDefaultZone());
+    }
+
+    public void add(int rating) {
+        count++;
+        sum += rating;
+        histogram[Math.max(0, Math.min(MAX_RATING, rating))]++;
+        addRecent(rating);
+
+        long today = today();
+        int slot = (int) Math.floorMod(today, (long) DAYS);
+        if (dayOf[slot] != today) {
+            dayOf[slot] = today;
+            daySum[slot] = 0;
+            dayCount[slot] = 0;
+        }
+        daySum[slot] += rating;
+        dayCount[slot]++;
+    }
+
+    public long getCount() { return count; }
+    public long getSum() { return sum; }
+
+    /**
+     * @return Average of all ratings, or 0 if there are none
+     */
+    public double getAverage() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param rating Rating from 0 to 5
+     * @return How many ratings fell in that histogram bucket
+     */
+    public long getCount(int rating) {
+        return histogram[rating];
+    }
+
+    /**
+     * @return Median rating, or 0 if there are none
+     */
+    public int getMedian() {
+        return getPercentile(50);
+    }
+
+    /**
+     * Nearest-rank percentile from the histogram.
+     * @param percent Percentile from 0 to 100
+     * @return Smallest rating that at least that percentage of ratings is at or below, or 0 if there are none
+     */
+    public int getPercentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int rating = 0; rating < MAX_RATING; rating++) {
+            seen += histogram[rating];
+            if (seen >= rank) {
+                return rating;
+            }
+        }
+        return MAX_RATING;
+    }
+
+    /**
+     * @return Number of ratings the recent average covers, at most the ring size
+     */
+    public int getRecentCount() {
+        return recentCount;
+    }
+
+    /**
+     * @return Average of the last ratings, or 0 if there are none
+     */
+    public double getRecentAverage() {
+        return recentCount == 0 ? 0 : (double) recentSum / recentCount;
+    }
+
+    /**
+     * @return Ratings received today and in the 6 days before
+     */
+    public int getLastDaysCount() {
+        long today = today();
+        int total = 0;
+        for (int slot = 0; slot < DAYS; slot++) {
+            if (isLastDays(dayOf[slot], today)) {
+                total += dayCount[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Average of the ratings received today and in the 6 days before, or 0 if there are none
+     */
+    public double getLastDaysAverage() {
+        long today = today();
+        long total = 0;
+        int ratings = 0;
+        for (int slot = 0; slot < DAYS; slot++) {
+            if (isLastDays(dayOf[slot], today)) {
+                total += daySum[slot];
+                ratings += dayCount[slot];
+            }
+        }
+        return ratings == 0 ? 0 : (double) total / ratings;
+    }
+
+    private static boolean isLastDays(long day, long today) {
+        return day > today - DAYS && day <= today;
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    /**
+     * Save the counters as properties, e.g. in a replay checkpoint manifest.
+     * @param properties Properties to add to
+     * @param prefix Prefix of the property names
+     */
+    public void store(Properties properties, String prefix) {
+        properties.setProperty(prefix + "count", Long.toString(count));
+        properties.setProperty(prefix + "sum", Long.toString(sum));
+        properties.setProperty(prefix + "histogram", join(histogram));
+        // Oldest first, so load() can add them back in order
+        long[] latest = new long[recentCount];
+        for (int i = 0; i < recentCount; i++) {
+            latest[i] = recent[(recentNext - recentCount + i + recent.length) % recent.length];
+        }
+        properties.setProperty(prefix + "recent", join(latest));
+        properties.setProperty(prefix + "dayOf", join(dayOf));
+        properties.setProperty(prefix + "daySum", join(daySum));
+        long[] counts = new long[DAYS];
+        for (int slot = 0; slot < DAYS; slot++) {
+            counts[slot] = dayCount[slot];
+        }
+        properties.setProperty(prefix + "dayCount", join(counts));
+    }
+
+    /**
+     * Read counters written by store().
+     * @param properties Properties to read
+     * @param prefix Prefix of the property names
+     * @return The restored statistics
+     * @throws IllegalArgumentException if a property is missing or malformed
+     */
+    public static RatingStats load(Properties properties, String prefix) {
+        RatingStats stats = new RatingStats();
+        long[] latest = split(properties, prefix + "recent", -1);
+        for (long rating : latest) {
+            stats.addRecent((int) rating);
+        }
+        stats.count = Long.parseLong(required(properties, prefix + "count"));
+        stats.sum = Long.parseLong(required(properties, prefix + "sum"));
+        System.arraycopy(split(properties, prefix + "histogram", MAX_RATING + 1), 0, stats.histogram, 0, MAX_RATING + 1);
+        System.arraycopy(split(properties, prefix + "dayOf", DAYS), 0, stats.dayOf, 0, DAYS);
+        System.arraycopy(split(properties, prefix + "daySum", DAYS), 0, stats.daySum, 0, DAYS);
+        long[] counts = split(properties, prefix + "dayCount", DAYS);
+        for (int slot = 0; slot < DAYS; slot++) {
+            stats.dayCount[slot] = (int) counts[slot];
+        }
+        return stats;
+    }
+
+    private void addRecent(int rating) {
+        if (recentCount == recent.length) {
+            recentSum -= recent[recentNext];
+        } else {
+            recentCount++;
+        }
+        recent[recentNext] = rating;
+        recentSum += rating;
+        recentNext = (recentNext + 1) % recent.length;
+    }
+
+    private static String join(long[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (long value : values) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static String required(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static long[] split(Properties properties, String name, int length) {
+        String value = required(properties, name).trim();
+        String[] fields = value.isEmpty() ? new String[0] : value.split(" ");
+        if (length >= 0 && fields.length != length) {
+            throw new IllegalArgumentException(name + " must have " + length + " values");
+        }
+        long[] values = new long[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = Long.parseLong(fields[i]);
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "Ratings[Count: %d, Average: %.2f, Median: %d]", count, getAverage(), getMedian());
+    }
+}
@@ -0,0 +1,191 @@
+package com.taskmanager;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass tokenizer and serializer shared by the data files and Commands.txt.
+ * Fields are separated by a delimiter character; a field may be wrapped in double
+ * quotes to include the delimiter, and inside quotes \" and \\ stand for a quote
+ * and a backslash. Dates and times are read straight from character offsets.
+ */
+public final class RecordCodec {
+    private static final String[] EMPTY = new String[0];
+
+    private RecordCodec() {
+    }
+
+    /**
+     * Split a space separated record. Runs of spaces count as one separator.
+     * @param line Record line
+     * @return Fields with surrounding quotes removed
+     */
+    public static String[] split(String line) {
+        return split(line, ' ');
+    }
+
+    /**
+     * Split a record on the given delimiter, honoring quoted fields.
+     * For a space delimiter, runs of spaces count as one separator; for any
+     * other delimiter empty fields are kept.
+     * @param line Record line
+     * @param delimiter Field separator
+     * @return Fields with surrounding quotes removed
+     */
+    public static String[] split(String line, char delimiter) {
+        int length = line.length();
+        if (length == 0) {
+            return EMPTY;
+        }
+        boolean collapse = delimiter == ' ';
+        List<String> fields = new ArrayList<>(16);
+        StringBuilder quoted = null;
+        int i = 0;
+
+        while (i <= length) {
+            if (collapse) {
+                while (i < length && line.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i == length) {
+                    break;
+                }
+            }
+
+            if (i < length && line.charAt(i) == '"') {
+                // Quoted field: copy characters until the closing quote
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                } else {
+                    quoted.setLength(0);
+                }
+                i++;
+                while (i < length) {
+                    char c = line.charAt(i);
+                    if (c == '\\' && i + 1 < length) {
+                        quoted.append(line.charAt(i + 1));
+                        i += 2;
+                    } else if (c == '"') {
+                        i++;
+                        break;
+                    } else {
+                        quoted.append(c);
+                        i++;
+                    }
+                }
+                // Anything between the closing quote and the delimiter is kept
+                int end = indexOf(line, delimiter, i);
+                if (end > i) {
+                    quoted.append(line, i, end);
+                }
+                fields.add(quoted.toString());
+                i = end + 1;
+            } else {
+                int end = indexOf(line, delimiter, i);
+                fields.add(line.substring(i, end));
+                i = end + 1;
+            }
+        }
+        return fields.toArray(EMPTY);
+    }
+
+    private static int indexOf(String line, char delimiter, int from) {
+        int end = line.indexOf(delimiter, from);
+        return end < 0 ? line.length() : end;
+    }
+
+    /**
+     * Append a value wrapped in double quotes, escaping quotes and backslashes.
+     * @param sb Target builder
+     * @param value Value to append
+     * @return The builder
+     */
+    public static StringBuilder appendQuoted(StringBuilder sb, String value) {
+        sb.append('"');
+        appendEscaped(sb, value);
+        return sb.append('"');
+    }
+
+    /**
+     * Append a value, quoting it only if it contains the delimiter, a quote or a backslash.
+     * @param sb Target builder
+     * @param value Value to append
+     * @param delimiter Field separator of the record
+     * @return The builder
+     */
+    public static StringBuilder appendField(StringBuilder sb, String value, char delimiter) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\\') {
+                return appendQuoted(sb, value);
+            }
+        }
+        return sb.append(value);
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * Parse a yyyy-MM-dd date and an HH:mm time.
+     * @param date Date field
+     * @param time Time field
+     * @return The combined date and time
+     * @throws DateTimeParseException if either field is malformed
+     */
+    public static LocalDateTime parseDateTime(String date, String time) {
+        if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new DateTimeParseException("Invalid date", date, 0);
+        }
+        if (time.length() != 5 || time.charAt(2) != ':') {
+            throw new DateTimeParseException("Invalid time", time, 0);
+        }
+        return LocalDateTime.of(
+                digits(date, 0, 4), digits(date, 5, 7), digits(date, 8, 10),
+                digits(time, 0, 2), digits(time, 3, 5));
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeParseException("Invalid digit", text, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Append a date time as "yyyy-MM-dd HH:mm".
+     * @param sb Target builder
+     * @param dateTime Value to append
+     * @return The builder
+     */
+    public static StringBuilder appendDateTime(StringBuilder sb, LocalDateTime dateTime) {
+        pad(sb, dateTime.getYear(), 4).append('-');
+        pad(sb, dateTime.getMonthValue(), 2).append('-');
+        pad(sb, dateTime.getDayOfMonth(), 2).append(' ');
+        pad(sb, dateTime.getHour(), 2).append(':');
+        return pad(sb, dateTime.getMinute(), 2);
+    }
+
+    private static StringBuilder pad(StringBuilder sb, int value, int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                sb.append('0');
+            }
+        }
+        return sb.append(value);
+    }
+}
@@ -14,43 +14,45 @@ public class ReminderSystem {
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
     
     /**
-     * Get reminders for tasks that are due soon.
+     * Get reminders for tasks that are due soon, plus alerts for overdue tasks.
+     * Only pending tasks in the two deadline ranges are visited.
      * @param taskManager The task manager containing all tasks
-     * @param daysThreshold Number of days to consider as "upcoming"
-     * @return List of reminder messages
+     * @param daysThreshold Number of days to consider as "upcoming"; below 0 only overdue tasks are returned
+     * @return List of reminder messages, overdue alerts first, each ordered by deadline
      */
     public List<String> getTaskReminders(TaskManager taskManager, int daysThreshold) {
         List<String> reminders = new ArrayList<>();
         LocalDateTime now = LocalDateTime.now();
-        
-        for (Task task : taskManager.getAllTasks()) {
-            if (task.isCompleted() || task.isApproved()) {
-                continue; // Skip completed or approved tasks
-            }
-            
+        // Whole days are truncated towards zero, so "0 days" covers (now - 1 day, now + 1 day)
+        LocalDateTime overdueLimit = now.minusDays(1);
+
+        for (Task task : taskManager.getPendingTasksDue(null, false, overdueLimit, true)) {
             LocalDateTime deadline = task.getDeadline();
-            if (deadline != null) {
-                long daysUntilDue = ChronoUnit.DAYS.between(now, deadline);
-                
-                if (daysUntilDue <= daysThreshold && daysUntilDue >= 0) {
-                    String reminder = String.format("REMINDER: Task '%s' (ID: %s) is due in %d days (on %s).",
-                            task.getTitle(), task.getId(), daysUntilDue, 
-                            deadline.format(DATE_TIME_FORMATTER));
-                    
-                    // Add priority information for high priority tasks
-                    if (task.getPriority() == TaskPriority.HIGH) {
-                        reminder += " This is a HIGH priority task!";
-                    }
-                    
-                    reminders.add(reminder);
-                } else if (daysUntilDue < 0) {
-                    // Task is overdue
-                    String reminder = String.format("ALERT: Task '%s' (ID: %s) is OVERDUE by %d days (was due on %s)!",
-                            task.getTitle(), task.getId(), Math.abs(daysUntilDue), 
-                            deadline.format(DATE_TIME_FORMATTER));
-                    reminders.add(reminder);
-                }
+            long daysUntilDue = ChronoUnit.DAYS.between(now, deadline);
+            String reminder = String.format("ALERT: Task '%s' (ID: %s) is OVERDUE by %d days (was due on %s)!",
+                    task.getTitle(), task.getId(), Math.abs(daysUntilDue),
+                    deadline.format(DATE_TIME_FORMATTER));
+            reminders.add(reminder);
+        }
+
+        if (daysThreshold < 0) {
+            // No task can be due in 0 to daysThreshold days
+            return reminders;
+        }
+        LocalDateTime upcomingLimit = now.plusDays(daysThreshold + 1L);
+        for (Task task : taskManager.getPendingTasksDue(overdueLimit, false, upcomingLimit, false)) {
+            LocalDateTime deadline = task.getDeadline();
+            long daysUntilDue = ChronoUnit.DAYS.between(now, deadline);
+            String reminder = String.format("REMINDER: Task '%s' (ID: %s) is due in %d days (on %s).",
+                    task.getTitle(), task.getId(), daysUntilDue,
+                    deadline.format(DATE_TIME_FORMATTER));
+
+            // Add priority information for high priority tasks
+            if (task.getPriority() == TaskPriority.HIGH) {
+                reminder += " This is a HIGH priority task!";
             }
+
+            reminders.add(reminder);
         }
         
         return reminders;
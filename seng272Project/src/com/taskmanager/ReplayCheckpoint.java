@@ -0,0 +1,279 @@
+package com.taskmanager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Periodic checkpoint of a command replay: the position in the command file
+ * together with the default family's complete in-memory state. A run that
+ * restarts after a crash restores that state and continues with the first
+ * command after the checkpoint, so recovery replays at most one checkpoint
+ * interval.
+ *
+ * Each checkpoint is written to a new generation directory (gen-N holding
+ * Task.bin, Wish.bin and Achievements.txt), which is synced to disk;
+ * checkpoint.properties, which holds the file position and the child's
+ * counters, is then replaced atomically to point at it, and the previous
+ * generation is deleted. A crash while writing therefore leaves the previous
+ * checkpoint intact. The checkpoint is deleted once the whole file has been
+ * replayed, so the next run starts from the beginning.
+ *
+ * While checkpointing, the family's data files are written only at each
+ * checkpoint (see Persistable), and the checkpoint records their size and
+ * modification time, which costs the same however large the files are. A
+ * checkpoint is ignored if those files or the bytes of the command file just
+ * before its position have changed since, so restoring never rolls back
+ * changes made by another run. A crash between writing the data files and
+ * replacing checkpoint.properties also makes the next run start from the
+ * beginning.
+ *
+ * Families addressed with an "@key" prefix keep their own files and run on
+ * their own threads, so they are not part of the checkpoint, and resuming
+ * would run their commands a second time. Before the first "@key" command
+ * runs, the checkpoint is therefore deleted and the default family goes back
+ * to saving every change; from then on the replay cannot be resumed.
+ */
+public class ReplayCheckpoint {
+    private static final String MANIFEST = "checkpoint.properties";
+    private static final int TAIL_LENGTH = 4096;
+    // Data files of the family, in whichever storage format is in use
+    private static final String[] DATA_FILES = {
+            "Task.txt", "Task.bin", "Task.log", "Wish.txt", "Wish.bin", "Achievements.txt"};
+
+    private final File dir;
+    private final File commandFile;
+    private final int interval;
+    private long generation;
+    private int pendingCommands;
+    private Command lastCommand;
+    private int saveCount;
+    private boolean stopped;
+
+    /**
+     * @param dir Directory holding the checkpoint
+     * @param commandFile Command file being replayed
+     * @param interval Commands between checkpoints
+     */
+    public ReplayCheckpoint(File dir, File commandFile, int interval) {
+        this.dir = dir;
+        this.commandFile = commandFile.getAbsoluteFile();
+        this.interval = interval;
+    }
+
+    /**
+     * Return the family to the last checkpoint of this command file, if there is one.
+     * @param family Family to restore
+     * @return {byte offset, line number} of the first command to execute, or null
+     *         to start at the beginning of the file
+     */
+    public long[] restore(Family family) {
+        File manifestFile = new File(dir, MANIFEST);
+        if (!manifestFile.exists()) {
+            return null;
+        }
+        try {
+            Properties manifest = new Properties();
+            try (InputStream in = new FileInputStream(manifestFile)) {
+                manifest.load(in);
+            }
+            generation = Long.parseLong(manifest.getProperty("generation"));
+            if (!commandFile.getPath().equals(manifest.getProperty("commandFile"))) {
+                System.err.println("Ignoring checkpoint of " + manifest.getProperty("commandFile")
+                        + "; replaying " + commandFile + " from the beginning.");
+                return null;
+            }
+            long offset = Long.parseLong(manifest.getProperty("offset"));
+            int tailLength = Integer.parseInt(manifest.getProperty("tailLength"));
+            if (offset > commandFile.length()
+                    || tailCrc(offset, tailLength) != Long.parseLong(manifest.getProperty("tailCrc"))) {
+                System.err.println("Command file changed since the last checkpoint; replaying from the beginning.");
+                return null;
+            }
+            for (String name : DATA_FILES) {
+                File file = new File(family.getDir(), name);
+                if (!identity(file).equals(manifest.getProperty("data." + name))) {
+                    System.err.println(file + " changed since the last checkpoint; replaying from the beginning.");
+                    return null;
+                }
+            }
+
+            File genDir = generationDir(generation);
+            family.getTaskManager().restore(BinarySnapshot.readTasks(new File(genDir, "Task.bin")));
+            family.getWishManager().restore(BinarySnapshot.readWishes(new File(genDir, "Wish.bin")));
+            family.getAchievementManager().restoreFrom(new File(genDir, "Achievements.txt"));
+            family.replayRuleHistory();
+            family.getChild().restore(manifest, "child.");
+
+            long lineNumber = Long.parseLong(manifest.getProperty("nextLine"));
+            Log.info("Restored checkpoint {}; resuming at line {}.", generation, lineNumber);
+            return new long[] {offset, lineNumber};
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading checkpoint, replaying from the beginning: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Record that a command was executed.
+     * @param command Command from the replayed file
+     * @return true once a checkpoint is due
+     */
+    public boolean commandProcessed(Command command) {
+        lastCommand = command;
+        return ++pendingCommands >= interval && !stopped;
+    }
+
+    /**
+     * Delete the checkpoint and write no more, because a command for an "@key"
+     * family is about to run. Call before that command is dispatched.
+     * @param command The family command
+     * @param family Family whose data files were saved only at checkpoints
+     */
+    public void stop(Command command, Family family) {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        new File(dir, MANIFEST).delete();
+        deleteGeneration(generation);
+        family.flush();
+        family.setAutoFlush(true);
+        System.out.println("Checkpoint deleted at line " + command.getLineNumber()
+                + ": commands for @key families cannot be resumed.");
+    }
+
+    /**
+     * Delete the checkpoint after the whole command file was replayed and the
+     * family's data files were saved.
+     */
+    public void complete() {
+        if (stopped) {
+            return;
+        }
+        new File(dir, MANIFEST).delete();
+        deleteGeneration(generation);
+        Log.info("Replay complete; checkpoint {} deleted.", generation);
+    }
+
+    /**
+     * Write a checkpoint after the last processed command, and save the
+     * family's data files. That command and every earlier one must have finished.
+     * @param family Family whose state is saved
+     */
+    public void save(Family family) {
+        Command command = lastCommand;
+        pendingCommands = 0;
+        long next = generation + 1;
+        File genDir = generationDir(next);
+        try {
+            Files.createDirectories(genDir.toPath());
+            BinarySnapshot.writeTasks(new File(genDir, "Task.bin"), family.getTaskManager().getAllTasks());
+            BinarySnapshot.writeWishes(new File(genDir, "Wish.bin"), family.getWishManager().getAllWishes());
+            family.getAchievementManager().writeTo(new File(genDir, "Achievements.txt"));
+            for (File file : genDir.listFiles()) {
+                sync(file);
+            }
+            syncDirectory(genDir);
+            family.flush();
+
+            long offset = command.getEndOffset();
+            int tailLength = (int) Math.min(TAIL_LENGTH, offset);
+            Properties manifest = new Properties();
+            manifest.setProperty("generation", Long.toString(next));
+            manifest.setProperty("commandFile", commandFile.getPath());
+            manifest.setProperty("offset", Long.toString(offset));
+            manifest.setProperty("nextLine", Long.toString(command.getLineNumber() + 1));
+            manifest.setProperty("tailLength", Integer.toString(tailLength));
+            manifest.setProperty("tailCrc", Long.toString(tailCrc(offset, tailLength)));
+            family.getChild().store(manifest, "child.");
+            for (String name : DATA_FILES) {
+                manifest.setProperty("data." + name, identity(new File(family.getDir(), name)));
+            }
+
+            File temp = new File(dir, MANIFEST + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                manifest.store(out, "Replay checkpoint");
+                out.getFD().sync();
+            }
+            Files.move(temp.toPath(), new File(dir, MANIFEST).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(dir);
+        } catch (IOException e) {
+            System.err.println("Error writing checkpoint: " + e.getMessage());
+            deleteGeneration(next);
+            return;
+        }
+        deleteGeneration(generation);
+        generation = next;
+        saveCount++;
+        Log.debug("Checkpoint {} written at line {}.", next, command.getLineNumber());
+    }
+
+    /**
+     * @return Number of checkpoints written by this run
+     */
+    public int getSaveCount() {
+        return saveCount;
+    }
+
+    private File generationDir(long number) {
+        return new File(dir, "gen-" + number);
+    }
+
+    private void deleteGeneration(long number) {
+        File[] files = generationDir(number).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            file.delete();
+        }
+        generationDir(number).delete();
+    }
+
+    private static void sync(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    // Makes new and renamed entries durable; not every platform can open a directory
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            Log.debug("Could not sync directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    // "size:modified" of a data file, with the time in microseconds, or "-" if it does not exist
+    private static String identity(File file) throws IOException {
+        if (!file.exists()) {
+            return "-";
+        }
+        return file.length() + ":" + Files.getLastModifiedTime(file.toPath()).to(TimeUnit.MICROSECONDS);
+    }
+
+    // CRC of the bytes just before offset, which identifies the replayed prefix of the file
+    private long tailCrc(long offset, int length) throws IOException {
+        byte[] tail = new byte[length];
+        try (RandomAccessFile file = new RandomAccessFile(commandFile, "r")) {
+            file.seek(offset - length);
+            file.readFully(tail);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(tail);
+        return crc.getValue();
+    }
+}
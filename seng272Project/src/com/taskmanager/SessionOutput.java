@@ -0,0 +1,73 @@
+package com.taskmanager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output stream installed as System.out and System.err in daemon mode. Bytes
+ * written while a thread runs a command for a session go to that session;
+ * everything else goes to the original console stream.
+ */
+public final class SessionOutput extends OutputStream {
+    private static final ThreadLocal<OutputStream> TARGET = new ThreadLocal<>();
+
+    private final OutputStream console;
+
+    private SessionOutput(OutputStream console) {
+        this.console = console;
+    }
+
+    /**
+     * Replace System.out and System.err with streams that follow the current session.
+     */
+    public static void install() {
+        System.setOut(new PrintStream(new SessionOutput(System.out), false, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new SessionOutput(System.err), false, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Run work with System.out and System.err sent to a session.
+     * @param target Session output
+     * @param work Work to run on the current thread
+     */
+    public static void run(OutputStream target, Runnable work) {
+        OutputStream previous = TARGET.get();
+        TARGET.set(target);
+        try {
+            work.run();
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            if (previous != null) {
+                TARGET.set(previous);
+            } else {
+                TARGET.remove();
+            }
+        }
+    }
+
+    private OutputStream target() {
+        OutputStream target = TARGET.get();
+        return target != null ? target : console;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target().write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        target().write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Session streams are flushed once per command by their session
+        if (TARGET.get() == null) {
+            console.flush();
+        }
+    }
+}
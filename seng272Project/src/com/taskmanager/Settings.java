@@ -0,0 +1,134 @@
+package com.taskmanager;
+
+import java.io.File;
+
+/**
+ * Startup options, read from system properties (java -Dtaskmanager.option=value).
+ */
+public final class Settings {
+    private Settings() {
+    }
+
+    /**
+     * Task files at least this many bytes are loaded by ParallelTaskLoader.
+     * A negative value always uses the sequential reader.
+     * Property: taskmanager.parallelLoadMinBytes (default 4 MiB)
+     */
+    public static long parallelLoadMinBytes() {
+        return Long.getLong("taskmanager.parallelLoadMinBytes", 4L * 1024 * 1024);
+    }
+
+    /**
+     * Directory holding Task.txt, Wish.txt, Achievements.txt and Commands.txt.
+     * Property: taskmanager.dataDir (default C:\Java\Yusuf Ali\seng272Project)
+     */
+    public static File dataDir() {
+        return new File(System.getProperty("taskmanager.dataDir", "C:\\Java\\Yusuf Ali\\seng272Project"));
+    }
+
+    /**
+     * Storage backend for tasks and wishes.
+     * Property: taskmanager.storage = text (default), binary or memory
+     */
+    public static String storage() {
+        return System.getProperty("taskmanager.storage", "text").toLowerCase();
+    }
+
+    /**
+     * Commands per group commit while replaying Commands.txt. 0 saves after every change.
+     * Property: taskmanager.groupCommit.commands (default 0)
+     */
+    public static int groupCommitCommands() {
+        return Integer.getInteger("taskmanager.groupCommit.commands", 0);
+    }
+
+    /**
+     * Longest time between group commits, in milliseconds.
+     * Property: taskmanager.groupCommit.millis (default 1000)
+     */
+    public static long groupCommitMillis() {
+        return Long.getLong("taskmanager.groupCommit.millis", 1000L);
+    }
+
+    /**
+     * Batches of lines each pipeline stage may read ahead of command execution.
+     * Property: taskmanager.pipeline.queueBatches (default 16)
+     */
+    public static int pipelineQueueBatches() {
+        return Integer.getInteger("taskmanager.pipeline.queueBatches", 16);
+    }
+
+    /**
+     * Executor lanes shared by families addressed with an "@key" prefix.
+     * Property: taskmanager.familyLanes (default: number of processors)
+     */
+    public static int familyLanes() {
+        return Integer.getInteger("taskmanager.familyLanes", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Families kept loaded before the least recently used one is saved and unloaded.
+     * Property: taskmanager.maxLoadedFamilies (default 1000)
+     */
+    public static int maxLoadedFamilies() {
+        return Integer.getInteger("taskmanager.maxLoadedFamilies", 1000);
+    }
+
+    /**
+     * Loopback port the daemon listens on (java com.taskmanager.Main --daemon).
+     * Property: taskmanager.daemon.port (default 7272)
+     */
+    public static int daemonPort() {
+        return Integer.getInteger("taskmanager.daemon.port", 7272);
+    }
+
+    /**
+     * Days back from the latest window that windowed achievement rules keep totals for.
+     * Property: taskmanager.rules.windowDays (default 366)
+     */
+    public static int ruleWindowDays() {
+        return Integer.getInteger("taskmanager.rules.windowDays", 366);
+    }
+
+    /**
+     * Lowest level of diagnostic message that is written: TRACE, DEBUG, INFO, WARN, ERROR or OFF.
+     * DEBUG adds a line per command and per change, TRACE a line per record.
+     * Property: taskmanager.log.level (default INFO)
+     */
+    public static LogLevel logLevel() {
+        return LogLevel.fromString(System.getProperty("taskmanager.log.level", "INFO"));
+    }
+
+    /**
+     * Write diagnostic messages from a background thread instead of the caller.
+     * Property: taskmanager.log.async (default false)
+     */
+    public static boolean logAsync() {
+        return Boolean.getBoolean("taskmanager.log.async");
+    }
+
+    /**
+     * Messages the asynchronous log buffer holds before loggers have to wait.
+     * Property: taskmanager.log.bufferSize (default 8192)
+     */
+    public static int logBufferSize() {
+        return Integer.getInteger("taskmanager.log.bufferSize", 8192);
+    }
+
+    /**
+     * Write a replay checkpoint every N commands so an interrupted run resumes
+     * from the last one. 0 disables checkpoints.
+     * Property: taskmanager.checkpoint.commands (default 0)
+     */
+    public static int checkpointCommands() {
+        return Integer.getInteger("taskmanager.checkpoint.commands", 0);
+    }
+
+    /**
+     * Number of latest ratings the recent rating average covers.
+     * Property: taskmanager.ratings.recent (default 10)
+     */
+    public static int recentRatings() {
+        return Integer.getInteger("taskmanager.ratings.recent", 10);
+    }
+}
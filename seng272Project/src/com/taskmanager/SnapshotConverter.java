@@ -0,0 +1,80 @@
+package com.taskmanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Converts task and wish files between the text format and BinarySnapshot.
+ *
+ * Usage: java com.taskmanager.SnapshotConverter (tasks|wishes) (to-binary|to-text) input output
+ */
+public class SnapshotConverter {
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: SnapshotConverter (tasks|wishes) (to-binary|to-text) <input> <output>");
+            System.exit(2);
+        }
+        String kind = args[0];
+        String direction = args[1];
+        File input = new File(args[2]);
+        File output = new File(args[3]);
+
+        try {
+            int count;
+            if (kind.equals("tasks") && direction.equals("to-binary")) {
+                List<Task> tasks = readText(input, TaskManager::parseTask);
+                BinarySnapshot.writeTasks(output, tasks);
+                count = tasks.size();
+            } else if (kind.equals("tasks") && direction.equals("to-text")) {
+                List<Task> tasks = BinarySnapshot.readTasks(input);
+                writeText(output, tasks, TaskManager::taskToString);
+                count = tasks.size();
+            } else if (kind.equals("wishes") && direction.equals("to-binary")) {
+                List<Wish> wishes = readText(input, WishManager::parseWish);
+                BinarySnapshot.writeWishes(output, wishes);
+                count = wishes.size();
+            } else if (kind.equals("wishes") && direction.equals("to-text")) {
+                List<Wish> wishes = BinarySnapshot.readWishes(input);
+                writeText(output, wishes, WishManager::wishToString);
+                count = wishes.size();
+            } else {
+                System.err.println("Unknown conversion: " + kind + " " + direction);
+                System.exit(2);
+                return;
+            }
+            System.out.println("Converted " + count + " " + kind + " from " + input + " to " + output);
+        } catch (IOException e) {
+            System.err.println("Error converting " + input + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static <T> List<T> readText(File file, Function<String, T> parser) throws IOException {
+        List<T> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    T record = parser.apply(line);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    private static <T> void writeText(File file, List<T> records, Function<T, String> formatter) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            for (T record : records) {
+                writer.println(formatter.apply(record));
+            }
+        }
+    }
+}
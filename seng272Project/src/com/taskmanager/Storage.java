@@ -0,0 +1,32 @@
+package com.taskmanager;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Where a manager keeps its records between runs.
+ * @param <T> Record type
+ */
+public interface Storage<T> {
+    /**
+     * Load every stored record.
+     * @return Records in stored order; empty if nothing has been stored yet
+     * @throws IOException if the records cannot be read
+     */
+    List<T> load() throws IOException;
+
+    /**
+     * Replace the stored records. Implementations must not leave a partially
+     * written copy behind if they fail.
+     * @param records Records to store
+     * @throws IOException if the records cannot be written
+     */
+    void save(Collection<T> records) throws IOException;
+
+    /**
+     * Describe where the records are kept, for log messages.
+     * @return Location description
+     */
+    String getLocation();
+}
@@ -0,0 +1,61 @@
+package com.taskmanager;
+
+import java.io.File;
+
+/**
+ * Creates the storage backends selected by Settings.storage() in Settings.dataDir().
+ */
+public final class Storages {
+    private Storages() {
+    }
+
+    public static Storage<Task> tasks() {
+        return tasks(Settings.dataDir());
+    }
+
+    public static Storage<Task> tasks(File dir) {
+        Storage<Task> text = new TextFileStorage<>(new File(dir, "Task.txt"),
+                TaskManager::parseTask, TaskManager::taskToString);
+        switch (Settings.storage()) {
+            case "memory":
+                return new InMemoryStorage<>();
+            case "binary":
+                return new BinaryFileStorage<>(new File(dir, "Task.bin"),
+                        BinarySnapshot::readTasks, BinarySnapshot::writeTasks, text);
+            default:
+                return text;
+        }
+    }
+
+    /**
+     * Change log kept next to the task snapshot, or null for in-memory storage.
+     */
+    public static TaskChangeLog taskChangeLog() {
+        return taskChangeLog(Settings.dataDir());
+    }
+
+    public static TaskChangeLog taskChangeLog(File dir) {
+        if (Settings.storage().equals("memory")) {
+            return null;
+        }
+        return new TaskChangeLog(new File(dir, "Task.log").getPath());
+    }
+
+    public static Storage<Wish> wishes() {
+        return wishes(Settings.dataDir());
+    }
+
+    public static Storage<Wish> wishes(File dir) {
+        Storage<Wish> text = new TextFileStorage<>(new File(dir, "Wish.txt"),
+                WishManager::parseWish, WishManager::wishToString);
+        switch (Settings.storage()) {
+            case "memory":
+                return new InMemoryStorage<>();
+            case "binary":
+                return new BinaryFileStorage<>(new File(dir, "Wish.bin"),
+                        BinarySnapshot::readWishes, BinarySnapshot::writeWishes, text);
+            default:
+                return text;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.taskmanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Append-only change log for tasks. Each mutation is written as one line so that
+ * the cost of a command does not depend on how many tasks are stored. The log is
+ * replayed on startup and folded back into the snapshot file by compaction.
+ */
+public class TaskChangeLog {
+    public static final String ADD = "ADD";
+    public static final String DONE = "DONE";
+    public static final String APPROVE = "APPROVE";
+
+    private final File file;
+    private Writer writer;
+    // Records appended while auto flush is off, written by flush()
+    private final StringBuilder pending = new StringBuilder();
+    private int recordCount;
+    private boolean autoFlush = true;
+
+    /**
+     * Create a change log backed by the given file.
+     * @param path Path of the log file
+     */
+    public TaskChangeLog(String path) {
+        this.file = new File(path);
+        this.recordCount = 0;
+    }
+
+    /**
+     * Replay every record in the log, oldest first.
+     * @param handler Receives each non-empty record line
+     */
+    public void replay(Consumer<String> handler) {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    handler.accept(line);
+                    recordCount++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying task log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append a single record. With auto flush on, the record is flushed to the
+     * operating system immediately; otherwise the file is not touched until flush().
+     * @param record Record line without trailing newline
+     */
+    public void append(String record) {
+        recordCount++;
+        pending.append(record).append(System.lineSeparator());
+        if (autoFlush) {
+            flush();
+        }
+    }
+
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    /**
+     * Write buffered records and flush them to the operating system.
+     */
+    public void flush() {
+        if (pending.length() == 0) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(file, true), StandardCharsets.UTF_8));
+            }
+            writer.append(pending);
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("Error appending to task log: " + e.getMessage());
+        }
+        pending.setLength(0);
+    }
+
+    /**
+     * Discard all records. Called after the snapshot has been rewritten.
+     */
+    public void truncate() {
+        pending.setLength(0);
+        close();
+        try {
+            new FileOutputStream(file, false).close();
+            recordCount = 0;
+        } catch (IOException e) {
+            System.err.println("Error truncating task log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write buffered records and close the underlying writer. A later append reopens it.
+     */
+    public void close() {
+        flush();
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Error closing task log: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+}
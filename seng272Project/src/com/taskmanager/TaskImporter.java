@@ -0,0 +1,241 @@
+package com.taskmanager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk import of tasks from a CSV or TSV export, e.g. a term's assignments from
+ * a school system. The first line names the columns, in any order:
+ *
+ *   id, title, points       required
+ *   deadline                "yyyy-MM-dd HH:mm", or
+ *   start, end              "yyyy-MM-dd HH:mm" for a timed task
+ *   assigned_by             T or F (default T)
+ *   description, category, priority
+ *
+ * Files ending in .tsv, or whose header contains a tab, are split on tabs and
+ * all others on commas. Fields may be quoted as in the data files. Rows are
+ * parsed in parallel chunks by ParallelTaskLoader and added with a single
+ * TaskManager.addTasks call, so the task file is written once.
+ */
+public class TaskImporter {
+    // Rejected rows printed in the report; the rest are only counted
+    private static final int MAX_REPORTED_REJECTS = 20;
+
+    private final ParallelTaskLoader loader;
+
+    public TaskImporter() {
+        this(new ParallelTaskLoader());
+    }
+
+    public TaskImporter(ParallelTaskLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Outcome of an import.
+     */
+    public static class Result {
+        private final int imported;
+        private final List<String> rejected;
+        private final long nanos;
+
+        Result(int imported, List<String> rejected, long nanos) {
+            this.imported = imported;
+            this.rejected = rejected;
+            this.nanos = nanos;
+        }
+
+        public int getImported() { return imported; }
+        public List<String> getRejected() { return rejected; }
+        public long getNanos() { return nanos; }
+
+        public double getRowsPerSecond() {
+            return nanos > 0 ? (imported + rejected.size()) * 1e9 / nanos : 0;
+        }
+    }
+
+    /**
+     * Parse a file and add its tasks.
+     * @param file CSV or TSV file with a header line
+     * @param taskManager Task manager to add the tasks to
+     * @return Imported and rejected row counts
+     * @throws IOException if the file cannot be read or has no usable header
+     */
+    public Result importTasks(File file, TaskManager taskManager) throws IOException {
+        long start = System.nanoTime();
+        String header;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            header = reader.readLine();
+        }
+        if (header == null) {
+            throw new IOException(file + " is empty");
+        }
+        long headerBytes = header.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char delimiter = file.getName().toLowerCase(Locale.ROOT).endsWith(".tsv") || header.indexOf('\t') >= 0
+                ? '\t' : ',';
+        Columns columns = new Columns(RecordCodec.split(header.trim(), delimiter));
+
+        List<Row> rows = loader.load(file, headerBytes, line -> parseRow(line, delimiter, columns));
+
+        List<Task> tasks = new ArrayList<>(rows.size());
+        List<String> rejected = new ArrayList<>();
+        Map<Task, String> lines = new IdentityHashMap<>();
+        for (Row row : rows) {
+            if (row.task != null) {
+                tasks.add(row.task);
+                lines.put(row.task, row.line);
+            } else {
+                rejected.add(row.line + " (" + row.error + ")");
+            }
+        }
+        for (Task duplicate : taskManager.addTasks(tasks)) {
+            rejected.add(lines.get(duplicate) + " (ID " + duplicate.getId() + " is already in use)");
+        }
+        int imported = rows.size() - rejected.size();
+        return new Result(imported, rejected, System.nanoTime() - start);
+    }
+
+    /**
+     * Print the summary and the first rejected rows.
+     * @param file Imported file
+     * @param result Import outcome
+     */
+    public static void printReport(File file, Result result) {
+        System.out.println(String.format(Locale.ROOT, "Imported %d tasks from %s in %.1f ms (%.0f rows/sec), rejected %d rows",
+                result.getImported(), file.getPath(), result.getNanos() / 1e6,
+                result.getRowsPerSecond(), result.getRejected().size()));
+        List<String> rejected = result.getRejected();
+        for (int i = 0; i < Math.min(MAX_REPORTED_REJECTS, rejected.size()); i++) {
+            System.out.println("Rejected: " + rejected.get(i));
+        }
+        if (rejected.size() > MAX_REPORTED_REJECTS) {
+            System.out.println("... and " + (rejected.size() - MAX_REPORTED_REJECTS) + " more rejected rows");
+        }
+    }
+
+    // Called concurrently from the loader's chunks; only reads the column map
+    private static Row parseRow(String line, char delimiter, Columns columns) {
+        try {
+            String[] fields = RecordCodec.split(line, delimiter);
+            String id = columns.required(fields, columns.id, "id");
+            String title = columns.required(fields, columns.title, "title");
+            int points = Integer.parseInt(columns.required(fields, columns.points, "points"));
+            String assignedBy = columns.get(fields, columns.assignedBy);
+            if (assignedBy.isEmpty()) {
+                assignedBy = "T";
+            } else if (!assignedBy.equals("T") && !assignedBy.equals("F")) {
+                throw new IllegalArgumentException("assigned_by must be T or F");
+            }
+            String description = columns.get(fields, columns.description);
+
+            Task task;
+            String deadline = columns.get(fields, columns.deadline);
+            if (!deadline.isEmpty()) {
+                task = new Task(id, assignedBy, title, description, parseDateTime(deadline), points);
+            } else {
+                LocalDateTime startTime = parseDateTime(columns.required(fields, columns.start, "deadline or start"));
+                LocalDateTime endTime = parseDateTime(columns.required(fields, columns.end, "end"));
+                task = new Task(id, assignedBy, title, description, startTime, endTime, points);
+            }
+
+            String category = columns.get(fields, columns.category);
+            if (!category.isEmpty()) {
+                task.setCategory(TaskCategory.fromString(category));
+            }
+            String priority = columns.get(fields, columns.priority);
+            if (!priority.isEmpty()) {
+                task.setPriority(TaskPriority.fromString(priority));
+            }
+            return new Row(line, task, null);
+        } catch (RuntimeException e) {
+            return new Row(line, null, e.getMessage());
+        }
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        int space = value.indexOf(' ');
+        if (space < 0) {
+            throw new IllegalArgumentException("Invalid date and time: " + value);
+        }
+        return RecordCodec.parseDateTime(value.substring(0, space), value.substring(space + 1).trim());
+    }
+
+    /**
+     * One parsed row: the task, or the reason it was rejected.
+     */
+    private static class Row {
+        final String line;
+        final Task task;
+        final String error;
+
+        Row(String line, Task task, String error) {
+            this.line = line;
+            this.task = task;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Position of each known column in a row, or -1 if the header lacks it.
+     */
+    private static class Columns {
+        final int id;
+        final int title;
+        final int points;
+        final int deadline;
+        final int start;
+        final int end;
+        final int assignedBy;
+        final int description;
+        final int category;
+        final int priority;
+
+        Columns(String[] header) throws IOException {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                positions.putIfAbsent(header[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            id = positions.getOrDefault("id", -1);
+            title = positions.getOrDefault("title", -1);
+            points = positions.getOrDefault("points", -1);
+            deadline = positions.getOrDefault("deadline", -1);
+            start = positions.getOrDefault("start", -1);
+            end = positions.getOrDefault("end", -1);
+            assignedBy = positions.getOrDefault("assigned_by", -1);
+            description = positions.getOrDefault("description", -1);
+            category = positions.getOrDefault("category", -1);
+            priority = positions.getOrDefault("priority", -1);
+            if (id < 0 || title < 0 || points < 0 || (deadline < 0 && (start < 0 || end < 0))) {
+                throw new IOException("Header must name id, title, points and either deadline or start and end");
+            }
+        }
+
+        String get(String[] fields, int column) {
+            return column >= 0 && column < fields.length ? fields[column].trim() : "";
+        }
+
+        String required(String[] fields, int column, String name) {
+            String value = get(fields, column);
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("missing " + name);
+            }
+            return value;
+        }
+    }
+}
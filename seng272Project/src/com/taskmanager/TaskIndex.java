@@ -0,0 +1,126 @@
+package com.taskmanager;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bitmap secondary indexes over task attributes. Bit i refers to the task at
+ * position i in TaskManager's task list. Indexes are updated as tasks are added
+ * or change status, so a composite query is answered with bitmap AND/OR
+ * operations without touching tasks that do not match.
+ */
+public class TaskIndex {
+    private final BitSet[] byCategory;
+    private final BitSet[] byPriority;
+    private final Map<String, BitSet> byAssignedBy;
+    private final BitSet completed;
+    private final BitSet approved;
+    private int size;
+
+    public TaskIndex() {
+        byCategory = newBitSets(TaskCategory.values().length);
+        byPriority = newBitSets(TaskPriority.values().length);
+        byAssignedBy = new HashMap<>();
+        completed = new BitSet();
+        approved = new BitSet();
+        size = 0;
+    }
+
+    private static BitSet[] newBitSets(int count) {
+        BitSet[] bitSets = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bitSets[i] = new BitSet();
+        }
+        return bitSets;
+    }
+
+    /**
+     * Index a task appended at the given list position.
+     * @param position Position of the task in the task list
+     * @param task The task
+     */
+    public void add(int position, Task task) {
+        byCategory[task.getCategory().ordinal()].set(position);
+        byPriority[task.getPriority().ordinal()].set(position);
+        byAssignedBy.computeIfAbsent(task.getAssignedBy(), key -> new BitSet()).set(position);
+        completed.set(position, task.isCompleted());
+        approved.set(position, task.isApproved());
+        size = Math.max(size, position + 1);
+    }
+
+    public void markCompleted(int position) {
+        completed.set(position);
+    }
+
+    public void markApproved(int position) {
+        approved.set(position);
+    }
+
+    /**
+     * Evaluate a composite query.
+     * @param query The query to evaluate
+     * @return Bitmap of matching task positions
+     */
+    public BitSet query(TaskQuery query) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+
+        if (!query.getCategories().isEmpty()) {
+            BitSet any = new BitSet();
+            for (TaskCategory category : query.getCategories()) {
+                any.or(byCategory[category.ordinal()]);
+            }
+            result.and(any);
+        }
+
+        if (!query.getPriorities().isEmpty()) {
+            BitSet any = new BitSet();
+            for (TaskPriority priority : query.getPriorities()) {
+                any.or(byPriority[priority.ordinal()]);
+            }
+            result.and(any);
+        }
+
+        if (!query.getAssignedBy().isEmpty()) {
+            BitSet any = new BitSet();
+            for (String assigner : query.getAssignedBy()) {
+                BitSet bits = byAssignedBy.get(assigner);
+                if (bits != null) {
+                    any.or(bits);
+                }
+            }
+            result.and(any);
+        }
+
+        if (!query.getStatuses().isEmpty()) {
+            result.and(status(query.getStatuses()));
+        }
+
+        return result;
+    }
+
+    private BitSet status(Set<TaskStatus> statuses) {
+        BitSet any = new BitSet();
+        for (TaskStatus status : statuses) {
+            switch (status) {
+                case PENDING:
+                    // Neither completed nor approved
+                    BitSet pending = new BitSet(size);
+                    pending.set(0, size);
+                    pending.andNot(completed);
+                    pending.andNot(approved);
+                    any.or(pending);
+                    break;
+                case COMPLETED:
+                    any.or(completed);
+                    break;
+                case APPROVED:
+                    any.or(approved);
+                    break;
+            }
+        }
+        return any;
+    }
+}
@@ -1,196 +1,469 @@
 package com.taskmanager;
 
-import java.io.*;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
-public class TaskManager {
+public class TaskManager implements Persistable {
     private List<Task> tasks;
-    private static final String TASKS_FILE = "C:\\Java\\Yusuf Ali\\seng272Project\\Task.txt";  // Using absolute path
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private Map<String, Integer> positionsById;
+    private TaskIndex index;
+    // Pending (not completed, not approved) tasks with a deadline, ordered by deadline
+    private NavigableMap<LocalDateTime, List<Task>> pendingByDeadline;
+    // Minimum number of log records before the log is folded back into the snapshot
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private final Storage<Task> storage;
+    // Null when the storage needs no incremental log
+    private final TaskChangeLog changeLog;
+    // While false, compaction waits for flush() so the files change only there
+    private boolean autoFlush = true;
 
     public TaskManager() {
+        this(Storages.tasks(), Storages.taskChangeLog());
+    }
+
+    /**
+     * Create a task manager on the given storage.
+     * @param storage Snapshot storage
+     * @param changeLog Change log for incremental writes, or null to keep changes in memory until compaction
+     */
+    public TaskManager(Storage<Task> storage, TaskChangeLog changeLog) {
         tasks = new ArrayList<>();
-        System.out.println("TaskManager initialized. Tasks file path: " + TASKS_FILE);
+        positionsById = new HashMap<>();
+        index = new TaskIndex();
+        pendingByDeadline = new TreeMap<>();
+        this.storage = storage;
+        this.changeLog = changeLog;
+        Log.info("TaskManager initialized. Tasks file path: {}", storage.getLocation());
         loadTasks();
     }
 
     private void loadTasks() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(TASKS_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    Task task = parseTask(line);
-                    if (task != null) {
-                        tasks.add(task);
-                    }
-                }
+        try {
+            for (Task task : storage.load()) {
+                addLoadedTask(task);
             }
-            System.out.println("Loaded " + tasks.size() + " tasks from file.");
+            Log.info("Loaded {} tasks from {}.", tasks.size(), storage.getLocation());
         } catch (IOException e) {
             System.err.println("Error loading tasks: " + e.getMessage());
-            // Create the file if it doesn't exist
-            try {
-                new File(TASKS_FILE).createNewFile();
-                System.out.println("Created new Tasks.txt file.");
-            } catch (IOException ex) {
-                System.err.println("Error creating Tasks.txt file: " + ex.getMessage());
+        }
+
+        // Apply changes recorded since the last snapshot
+        if (changeLog != null) {
+            changeLog.replay(this::applyLogRecord);
+            if (changeLog.getRecordCount() > 0) {
+                Log.info("Replayed {} task log records.", changeLog.getRecordCount());
+            }
+        }
+    }
+
+    private void addLoadedTask(Task task) {
+        if (!indexTask(task)) {
+            System.err.println("Duplicate task ID " + task.getId() + " in tasks file, keeping the first entry.");
+        }
+    }
+
+    /**
+     * Apply one change log record. Records are idempotent so a log that was
+     * already folded into the snapshot can be replayed safely.
+     * @param record Log line
+     */
+    private void applyLogRecord(String record) {
+        try {
+            int space = record.indexOf(' ');
+            String op = record.substring(0, space);
+            String args = record.substring(space + 1);
+            switch (op) {
+                case TaskChangeLog.ADD:
+                    Task task = parseTask(args);
+                    if (task != null) {
+                        indexTask(task);
+                    }
+                    break;
+                case TaskChangeLog.DONE:
+                    setCompleted(args);
+                    break;
+                case TaskChangeLog.APPROVE:
+                    String[] parts = RecordCodec.split(args);
+                    setApproved(parts[0], Integer.parseInt(parts[1]));
+                    break;
+                default:
+                    System.err.println("Unknown task log record: " + record);
             }
+        } catch (Exception e) {
+            System.err.println("Error replaying task log record: " + e.getMessage());
         }
     }
 
-    private Task parseTask(String line) {
+    /**
+     * Parse a TASK1/TASK2 record as written by taskToString.
+     * @param line Record line
+     * @return The task, or null if the line is malformed
+     */
+    static Task parseTask(String line) {
         try {
-            String[] parts = line.split(" ");
+            String[] parts = RecordCodec.split(line);
             String type = parts[0];
             String assignedBy = parts[1];
             String id = parts[2];
-            String title = parts[3].replace("\"", "");
-            String description = parts[4].replace("\"", "");
-
-            // Check if category and priority are specified
-            TaskCategory category = TaskCategory.OTHER;
-            TaskPriority priority = TaskPriority.MEDIUM;
-
-            // Parse points which is always the last element
+            String title = parts[3];
+            String description = parts[4];
+            // Points are always the last element
             int points = Integer.parseInt(parts[parts.length - 1]);
 
-            // Check if there are category and priority fields
-            for (int i = 0; i < parts.length; i++) {
-                if (parts[i].equals("CATEGORY") && i + 1 < parts.length) {
-                    category = TaskCategory.fromString(parts[i + 1]);
-                }
-                if (parts[i].equals("PRIORITY") && i + 1 < parts.length) {
-                    priority = TaskPriority.fromString(parts[i + 1]);
-                }
-            }
-
+            Task task;
+            int next;
             if (type.equals("TASK1")) {
-                LocalDateTime deadline = LocalDateTime.parse(
-                        parts[5] + "T" + parts[6],
-                        DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                );
-                return new Task(id, assignedBy, title, description, deadline, points, category, priority);
+                LocalDateTime deadline = RecordCodec.parseDateTime(parts[5], parts[6]);
+                task = new Task(id, assignedBy, title, description, deadline, points);
+                next = 7;
             } else if (type.equals("TASK2")) {
-                LocalDateTime startTime = LocalDateTime.parse(
-                        parts[5] + "T" + parts[6],
-                        DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                );
-                LocalDateTime endTime = LocalDateTime.parse(
-                        parts[7] + "T" + parts[8],
-                        DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                );
-                return new Task(id, assignedBy, title, description, startTime, endTime, points, category, priority);
+                LocalDateTime startTime = RecordCodec.parseDateTime(parts[5], parts[6]);
+                LocalDateTime endTime = RecordCodec.parseDateTime(parts[7], parts[8]);
+                task = new Task(id, assignedBy, title, description, startTime, endTime, points);
+                next = 9;
+            } else {
+                return null;
+            }
+
+            // Keyword fields follow the dates
+            for (int i = next; i < parts.length; i++) {
+                switch (parts[i]) {
+                    case "CATEGORY":
+                        task.setCategory(TaskCategory.fromString(parts[++i]));
+                        break;
+                    case "PRIORITY":
+                        task.setPriority(TaskPriority.fromString(parts[++i]));
+                        break;
+                    case "COMPLETED":
+                        task.setCompleted(true);
+                        break;
+                    case "APPROVED":
+                        task.setApproved(true);
+                        task.setRating(Integer.parseInt(parts[++i]));
+                        break;
+                    default:
+                        break;
+                }
             }
+            return task;
         } catch (Exception e) {
             System.err.println("Error parsing task: " + e.getMessage());
         }
         return null;
     }
 
-    public void addTask(Task task) {
-        System.out.println("Adding new task: " + task);
-        tasks.add(task);
-        System.out.println("Current task count: " + tasks.size());
-        saveTasks();
+    /**
+     * Add a new task.
+     * @param task Task to add
+     * @return false if a task with the same ID already exists
+     */
+    public boolean addTask(Task task) {
+        Log.debug("Adding new task: {}", task);
+        if (!indexTask(task)) {
+            return false;
+        }
+        Log.debug("Current task count: {}", tasks.size());
+        logChange(TaskChangeLog.ADD + " " + taskToString(task));
+        return true;
     }
 
-    public void markTaskAsCompleted(String taskId) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                task.setCompleted(true);
-                saveTasks();
-                return;
+    /**
+     * Add many tasks and save them with a single snapshot write instead of one
+     * change record each.
+     * @param newTasks Tasks to add, in order
+     * @return Tasks that were not added because their ID was already in use,
+     *         either before the call or by an earlier task in newTasks
+     */
+    public List<Task> addTasks(Collection<Task> newTasks) {
+        List<Task> rejected = new ArrayList<>();
+        for (Task task : newTasks) {
+            if (!indexTask(task)) {
+                rejected.add(task);
             }
         }
+        if (rejected.size() < newTasks.size()) {
+            compact();
+        }
+        return rejected;
+    }
+
+    /**
+     * Add a task to the list, the ID index and the bitmap indexes.
+     * @param task Task to add
+     * @return false if the ID is already taken
+     */
+    private boolean indexTask(Task task) {
+        int position = tasks.size();
+        if (positionsById.putIfAbsent(task.getId(), position) != null) {
+            return false;
+        }
+        tasks.add(task);
+        index.add(position, task);
+        if (isPendingWithDeadline(task)) {
+            pendingByDeadline.computeIfAbsent(task.getDeadline(), key -> new ArrayList<>(1)).add(task);
+        }
+        return true;
+    }
+
+    private static boolean isPendingWithDeadline(Task task) {
+        return task.getDeadline() != null && !task.isCompleted() && !task.isApproved();
     }
 
-    public void approveTask(String taskId, int rating) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                task.setApproved(true);
-                task.setRating(rating);
-                saveTasks();
-                return;
+    private void removeFromDeadlineIndex(Task task) {
+        if (!isPendingWithDeadline(task)) {
+            return;
+        }
+        List<Task> due = pendingByDeadline.get(task.getDeadline());
+        if (due != null) {
+            due.remove(task);
+            if (due.isEmpty()) {
+                pendingByDeadline.remove(task.getDeadline());
             }
         }
     }
 
+    private boolean setCompleted(String taskId) {
+        Integer position = positionsById.get(taskId);
+        if (position == null) {
+            return false;
+        }
+        Task task = tasks.get(position);
+        removeFromDeadlineIndex(task);
+        task.setCompleted(true);
+        index.markCompleted(position);
+        return true;
+    }
+
+    private boolean setApproved(String taskId, int rating) {
+        Integer position = positionsById.get(taskId);
+        if (position == null) {
+            return false;
+        }
+        Task task = tasks.get(position);
+        removeFromDeadlineIndex(task);
+        task.setApproved(true);
+        task.setRating(rating);
+        index.markApproved(position);
+        return true;
+    }
+
+    public void markTaskAsCompleted(String taskId) {
+        if (setCompleted(taskId)) {
+            logChange(TaskChangeLog.DONE + " " + taskId);
+        }
+    }
+
+    /**
+     * Approve a task with a rating.
+     * @param taskId Task ID
+     * @param rating Rating given by the parent
+     * @return false if the task does not exist
+     */
+    public boolean approveTask(String taskId, int rating) {
+        if (!setApproved(taskId, rating)) {
+            return false;
+        }
+        logChange(TaskChangeLog.APPROVE + " " + taskId + " " + rating);
+        return true;
+    }
+
+    /**
+     * Replace every task with the given ones and write a fresh snapshot. Used to
+     * return to a replay checkpoint.
+     * @param snapshot Tasks to keep
+     */
+    public void restore(Collection<Task> snapshot) {
+        tasks.clear();
+        positionsById.clear();
+        index = new TaskIndex();
+        pendingByDeadline.clear();
+        for (Task task : snapshot) {
+            addLoadedTask(task);
+        }
+        compact();
+    }
+
+    /**
+     * Look up a task by ID.
+     * @param taskId Task ID
+     * @return The task, or null if no task has this ID
+     */
+    public Task getTask(String taskId) {
+        Integer position = positionsById.get(taskId);
+        return position != null ? tasks.get(position) : null;
+    }
+
+    /**
+     * Append a change record and compact once the log has grown at least as
+     * large as the task list, which keeps the amortized cost per change constant.
+     * @param record Change log record
+     */
+    private void logChange(String record) {
+        if (changeLog == null) {
+            return;
+        }
+        changeLog.append(record);
+        if (autoFlush) {
+            compactIfLarge();
+        }
+    }
+
+    private void compactIfLarge() {
+        if (changeLog.getRecordCount() >= Math.max(COMPACTION_THRESHOLD, tasks.size())) {
+            compact();
+        }
+    }
+
+    /**
+     * Fold the change log into the snapshot and start a new, empty log.
+     */
+    public void compact() {
+        if (saveTasks() && changeLog != null) {
+            changeLog.truncate();
+        }
+    }
+
+    @Override
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+        if (changeLog != null) {
+            changeLog.setAutoFlush(autoFlush);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (changeLog != null) {
+            changeLog.flush();
+            compactIfLarge();
+        }
+    }
+
+    /**
+     * Compact any pending changes and release the log file.
+     */
+    public void close() {
+        if (changeLog == null) {
+            saveTasks();
+            return;
+        }
+        if (changeLog.getRecordCount() > 0) {
+            compact();
+        }
+        changeLog.close();
+    }
+
+    /**
+     * Get all tasks without copying them.
+     * @return Read-only view of the task list, in insertion order
+     */
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks);
+        return Collections.unmodifiableList(tasks);
     }
 
     public List<Task> getTasksByCategory(TaskCategory category) {
-        List<Task> filteredTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getCategory() == category) {
-                filteredTasks.add(task);
-            }
-        }
-        return filteredTasks;
+        return queryTasks(new TaskQuery().category(category));
     }
 
     public List<Task> getTasksByPriority(TaskPriority priority) {
-        List<Task> filteredTasks = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task.getPriority() == priority) {
-                filteredTasks.add(task);
+        return queryTasks(new TaskQuery().priority(priority));
+    }
+
+    /**
+     * Find pending tasks whose deadline lies in a range, ordered by deadline.
+     * Cost is proportional to the number of matches, not the number of tasks.
+     * @param from Lower bound, or null for no lower bound
+     * @param fromInclusive Whether a deadline equal to from matches
+     * @param to Upper bound, or null for no upper bound
+     * @param toInclusive Whether a deadline equal to to matches
+     * @return Tasks that are neither completed nor approved and are due in the range
+     */
+    public List<Task> getPendingTasksDue(LocalDateTime from, boolean fromInclusive,
+                                         LocalDateTime to, boolean toInclusive) {
+        NavigableMap<LocalDateTime, List<Task>> range = pendingByDeadline;
+        if (from != null && to != null) {
+            if (from.isAfter(to)) {
+                return new ArrayList<>();
             }
+            range = range.subMap(from, fromInclusive, to, toInclusive);
+        } else if (from != null) {
+            range = range.tailMap(from, fromInclusive);
+        } else if (to != null) {
+            range = range.headMap(to, toInclusive);
         }
-        return filteredTasks;
+
+        List<Task> due = new ArrayList<>();
+        for (List<Task> sameDeadline : range.values()) {
+            due.addAll(sameDeadline);
+        }
+        return due;
     }
 
-    public int getTaskPoints(String taskId) {
-        for (Task task : tasks) {
-            if (task.getId().equals(taskId)) {
-                return task.getPoints();
-            }
+    /**
+     * Find the tasks matching a composite query, in insertion order.
+     * @param query Filter on category, priority, assigner and status
+     * @return Matching tasks
+     */
+    public List<Task> queryTasks(TaskQuery query) {
+        BitSet matches = index.query(query);
+        List<Task> filteredTasks = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            filteredTasks.add(tasks.get(i));
         }
-        return 0;
+        return filteredTasks;
     }
 
-    private void saveTasks() {
-        System.out.println("Attempting to save tasks to: " + TASKS_FILE);
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TASKS_FILE))) {
-            System.out.println("Successfully opened file for writing");
-            for (Task task : tasks) {
-                String taskString = taskToString(task);
-                writer.println(taskString);
-                System.out.println("Writing task to file: " + taskString);
-            }
-            writer.flush();
-            System.out.println("Successfully saved " + tasks.size() + " tasks to file.");
+    private boolean saveTasks() {
+        Log.debug("Attempting to save tasks to: {}", storage.getLocation());
+        try {
+            storage.save(tasks);
         } catch (IOException e) {
             System.err.println("Error saving tasks: " + e.getMessage());
-            e.printStackTrace();
+            return false;
         }
+        Log.info("Successfully saved {} tasks to {}.", tasks.size(), storage.getLocation());
+        return true;
     }
 
-    private String taskToString(Task task) {
-        StringBuilder sb = new StringBuilder();
+    static String taskToString(Task task) {
+        StringBuilder sb = new StringBuilder(128);
         sb.append(task.getStartTime() != null ? "TASK2" : "TASK1")
-                .append(" ").append(task.getAssignedBy())
-                .append(" ").append(task.getId())
-                .append(" \"").append(task.getTitle()).append("\"")
-                .append(" \"").append(task.getDescription()).append("\"");
+                .append(' ').append(task.getAssignedBy())
+                .append(' ').append(task.getId())
+                .append(' ');
+        RecordCodec.appendQuoted(sb, task.getTitle()).append(' ');
+        RecordCodec.appendQuoted(sb, task.getDescription()).append(' ');
 
         if (task.getStartTime() != null) {
-            sb.append(" ").append(task.getStartTime().format(DATE_FORMATTER))
-                    .append(" ").append(task.getStartTime().format(TIME_FORMATTER))
-                    .append(" ").append(task.getEndTime().format(DATE_FORMATTER))
-                    .append(" ").append(task.getEndTime().format(TIME_FORMATTER));
+            RecordCodec.appendDateTime(sb, task.getStartTime()).append(' ');
+            RecordCodec.appendDateTime(sb, task.getEndTime());
         } else {
-            sb.append(" ").append(task.getDeadline().format(DATE_FORMATTER))
-                    .append(" ").append(task.getDeadline().format(TIME_FORMATTER));
+            RecordCodec.appendDateTime(sb, task.getDeadline());
         }
 
         // Add category and priority information
         sb.append(" CATEGORY ").append(task.getCategory().name())
-          .append(" PRIORITY ").append(task.getPriority().name())
-          .append(" POINT ").append(task.getPoints());
+          .append(" PRIORITY ").append(task.getPriority().name());
+
+        // Status flags, so that compaction does not lose completions and approvals
+        if (task.isCompleted()) {
+            sb.append(" COMPLETED");
+        }
+        if (task.isApproved()) {
+            sb.append(" APPROVED ").append(task.getRating());
+        }
+
+        sb.append(" POINT ").append(task.getPoints());
         return sb.toString();
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.taskmanager;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A composite task filter. Values given for the same field are OR-ed together,
+ * and the fields themselves are AND-ed. A field with no values matches every task.
+ */
+public class TaskQuery {
+    private final Set<TaskCategory> categories = EnumSet.noneOf(TaskCategory.class);
+    private final Set<TaskPriority> priorities = EnumSet.noneOf(TaskPriority.class);
+    private final Set<String> assignedBy = new HashSet<>();
+    private final Set<TaskStatus> statuses = EnumSet.noneOf(TaskStatus.class);
+
+    public TaskQuery category(TaskCategory category) {
+        categories.add(category);
+        return this;
+    }
+
+    public TaskQuery priority(TaskPriority priority) {
+        priorities.add(priority);
+        return this;
+    }
+
+    public TaskQuery assignedBy(String assigner) {
+        assignedBy.add(assigner);
+        return this;
+    }
+
+    public TaskQuery status(TaskStatus status) {
+        statuses.add(status);
+        return this;
+    }
+
+    public Set<TaskCategory> getCategories() { return categories; }
+    public Set<TaskPriority> getPriorities() { return priorities; }
+    public Set<String> getAssignedBy() { return assignedBy; }
+    public Set<TaskStatus> getStatuses() { return statuses; }
+
+    @Override
+    public String toString() {
+        return String.format("TaskQuery[Categories: %s, Priorities: %s, Assigned by: %s, Statuses: %s]",
+                categories, priorities, assignedBy, statuses);
+    }
+}
@@ -0,0 +1,39 @@
+package com.taskmanager;
+
+/**
+ * Represents the review status of a task, used when filtering task lists.
+ */
+public enum TaskStatus {
+    PENDING("Pending"),
+    COMPLETED("Completed"),
+    APPROVED("Approved");
+
+    private final String displayName;
+
+    TaskStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Convert a string to a TaskStatus enum value.
+     * @param statusStr The string representation of the status
+     * @return The corresponding TaskStatus or PENDING if not found
+     */
+    public static TaskStatus fromString(String statusStr) {
+        if (statusStr == null || statusStr.isEmpty()) {
+            return PENDING;
+        }
+
+        for (TaskStatus status : TaskStatus.values()) {
+            if (status.name().equalsIgnoreCase(statusStr) ||
+                status.getDisplayName().equalsIgnoreCase(statusStr)) {
+                return status;
+            }
+        }
+        return PENDING;
+    }
+}
@@ -0,0 +1,91 @@
+package com.taskmanager;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Stores one record per line in a UTF-8 text file. Large files are loaded with
+ * ParallelTaskLoader, and saves go through a temporary file that is renamed over
+ * the original.
+ * @param <T> Record type
+ */
+public class TextFileStorage<T> implements Storage<T> {
+    private final File file;
+    private final Function<String, T> parser;
+    private final Function<T, String> formatter;
+
+    /**
+     * @param file Text file
+     * @param parser Converts a line to a record, or returns null for a malformed line
+     * @param formatter Converts a record to a line
+     */
+    public TextFileStorage(File file, Function<String, T> parser, Function<T, String> formatter) {
+        this.file = file;
+        this.parser = parser;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public List<T> load() throws IOException {
+        if (!file.exists()) {
+            // Create the file if it doesn't exist
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+            file.createNewFile();
+            Log.info("Created new {} file.", file.getName());
+            return new ArrayList<>();
+        }
+
+        long parallelMinBytes = Settings.parallelLoadMinBytes();
+        if (parallelMinBytes >= 0 && file.length() >= parallelMinBytes && file.length() > 0) {
+            // Large file: parse chunks in parallel, results stay in file order
+            return new ParallelTaskLoader().load(file, parser);
+        }
+
+        List<T> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    T record = parser.apply(line);
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void save(Collection<T> records) throws IOException {
+        // Write to a temporary file first so a crash never leaves a truncated file
+        File temp = new File(file.getPath() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8)))) {
+            for (T record : records) {
+                String line = formatter.apply(record);
+                writer.println(line);
+                Log.trace("Writing to file: {}", line);
+            }
+            if (writer.checkError()) {
+                throw new IOException("Error writing " + temp);
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String getLocation() {
+        return file.getPath();
+    }
+}
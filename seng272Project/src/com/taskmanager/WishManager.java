@@ -1,70 +1,80 @@
 package com.taskmanager;
 
-import java.io.*;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class WishManager {
+public class WishManager implements Persistable {
     private List<Wish> wishes;
-    private static final String WISHES_FILE = "C:\\Java\\Yusuf Ali\\seng272Project\\Wish.txt";  // Using absolute path
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    // First wish with each ID; wishes may repeat an ID, as they always could
+    private Map<String, Wish> wishesById;
+    private final Storage<Wish> storage;
+    private boolean autoFlush = true;
+    private boolean dirty = false;
 
     public WishManager() {
+        this(Storages.wishes());
+    }
+
+    /**
+     * Create a wish manager over the given storage backend.
+     * @param storage Where wishes are loaded from and saved to
+     */
+    public WishManager(Storage<Wish> storage) {
+        this.storage = storage;
         wishes = new ArrayList<>();
-        System.out.println("WishManager initialized. Wishes file path: " + WISHES_FILE);
+        wishesById = new HashMap<>();
+        Log.info("WishManager initialized. Wishes stored in: {}", storage.getLocation());
         loadWishes();
     }
 
     private void loadWishes() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(WISHES_FILE))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    Wish wish = parseWish(line);
-                    if (wish != null) {
-                        wishes.add(wish);
-                    }
-                }
+        try {
+            for (Wish wish : storage.load()) {
+                addLoadedWish(wish);
             }
-            System.out.println("Loaded " + wishes.size() + " wishes from file.");
+            Log.info("Loaded {} wishes from {}.", wishes.size(), storage.getLocation());
         } catch (IOException e) {
             System.err.println("Error loading wishes: " + e.getMessage());
-            // Create the file if it doesn't exist
-            try {
-                new File(WISHES_FILE).createNewFile();
-                System.out.println("Created new Wishes.txt file.");
-            } catch (IOException ex) {
-                System.err.println("Error creating Wishes.txt file: " + ex.getMessage());
-            }
         }
     }
 
-    private Wish parseWish(String line) {
+    private void addLoadedWish(Wish wish) {
+        wishes.add(wish);
+        wishesById.putIfAbsent(wish.getId(), wish);
+    }
+
+    static Wish parseWish(String line) {
         try {
-            // Split the line properly, preserving quoted strings
-            String[] parts = line.split(" (?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+            String[] parts = RecordCodec.split(line);
             
             String type = parts[0];
             String id = parts[1];
-            String title = parts[2].replace("\"", "");
-            String description = parts[3].replace("\"", "");
+            String title = parts[2];
+            String description = parts[3];
 
+            Wish wish = null;
+            int next = 4;
             if (type.equals("WISH1")) {
-                return new Wish(id, title, description);
+                wish = new Wish(id, title, description);
             } else if (type.equals("WISH2")) {
-                LocalDateTime startTime = LocalDateTime.parse(
-                        parts[4] + "T" + parts[5],
-                        DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                );
-                LocalDateTime endTime = LocalDateTime.parse(
-                        parts[6] + "T" + parts[7],
-                        DateTimeFormatter.ISO_LOCAL_DATE_TIME
-                );
-                return new Wish(id, title, description, startTime, endTime);
+                LocalDateTime startTime = RecordCodec.parseDateTime(parts[4], parts[5]);
+                LocalDateTime endTime = RecordCodec.parseDateTime(parts[6], parts[7]);
+                wish = new Wish(id, title, description, startTime, endTime);
+                next = 8;
             }
+
+            // Approved wishes carry their required level
+            if (wish != null && next + 1 < parts.length && parts[next].equals("LEVEL")) {
+                wish.setApproved(true);
+                wish.setRequiredLevel(Integer.parseInt(parts[next + 1]));
+            }
+            return wish;
         } catch (Exception e) {
             System.err.println("Error parsing wish: " + e.getMessage());
         }
@@ -72,56 +82,109 @@ public class WishManager {
     }
 
     public void addWish(Wish wish) {
-        wishes.add(wish);
-        saveWishes();
+        addLoadedWish(wish);
+        persist();
     }
 
-    public void approveWish(String wishId, int requiredLevel) {
-        for (Wish wish : wishes) {
-            if (wish.getId().equals(wishId)) {
-                wish.setApproved(true);
-                wish.setRequiredLevel(requiredLevel);
-                saveWishes();
-                return;
-            }
+    /**
+     * Approve a wish with the level needed to redeem it.
+     * @param wishId Wish ID
+     * @param requiredLevel Required level
+     * @return false if the wish does not exist
+     */
+    public boolean approveWish(String wishId, int requiredLevel) {
+        Wish wish = wishesById.get(wishId);
+        if (wish == null) {
+            return false;
         }
+        wish.setApproved(true);
+        wish.setRequiredLevel(requiredLevel);
+        persist();
+        return true;
+    }
+
+    /**
+     * Look up a wish by ID.
+     * @param wishId Wish ID
+     * @return The first wish with this ID, or null if there is none
+     */
+    public Wish getWish(String wishId) {
+        return wishesById.get(wishId);
     }
 
     public void rejectWish(String wishId) {
-        wishes.removeIf(wish -> wish.getId().equals(wishId));
+        if (wishesById.remove(wishId) != null) {
+            wishes.removeIf(wish -> wish.getId().equals(wishId));
+            persist();
+        }
+    }
+
+    /**
+     * Replace every wish with the given ones and save them. Used to return to a
+     * replay checkpoint.
+     * @param snapshot Wishes to keep
+     */
+    public void restore(Collection<Wish> snapshot) {
+        wishes.clear();
+        wishesById.clear();
+        for (Wish wish : snapshot) {
+            addLoadedWish(wish);
+        }
         saveWishes();
+        dirty = false;
     }
 
+    /**
+     * Get all wishes without copying them.
+     * @return Read-only view of the wish list
+     */
     public List<Wish> getAllWishes() {
-        return new ArrayList<>(wishes);
+        return Collections.unmodifiableList(wishes);
+    }
+
+    private void persist() {
+        if (autoFlush) {
+            saveWishes();
+        } else {
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    @Override
+    public void flush() {
+        if (dirty) {
+            saveWishes();
+            dirty = false;
+        }
     }
 
     private void saveWishes() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(WISHES_FILE))) {
-            for (Wish wish : wishes) {
-                String wishString = wishToString(wish);
-                writer.println(wishString);
-                System.out.println("Writing wish to file: " + wishString);
-            }
-            System.out.println("Successfully saved " + wishes.size() + " wishes to file.");
+        try {
+            storage.save(wishes);
+            Log.info("Successfully saved {} wishes to {}.", wishes.size(), storage.getLocation());
         } catch (IOException e) {
             System.err.println("Error saving wishes: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private String wishToString(Wish wish) {
-        StringBuilder sb = new StringBuilder();
+    static String wishToString(Wish wish) {
+        StringBuilder sb = new StringBuilder(96);
         sb.append(wish.getStartTime() != null ? "WISH2" : "WISH1")
-                .append(" ").append(wish.getId())
-                .append(" \"").append(wish.getTitle()).append("\"")
-                .append(" \"").append(wish.getDescription()).append("\"");
+                .append(' ').append(wish.getId())
+                .append(' ');
+        RecordCodec.appendQuoted(sb, wish.getTitle()).append(' ');
+        RecordCodec.appendQuoted(sb, wish.getDescription());
 
         if (wish.getStartTime() != null) {
-            sb.append(" ").append(wish.getStartTime().format(DATE_FORMATTER))
-                    .append(" ").append(wish.getStartTime().format(TIME_FORMATTER))
-                    .append(" ").append(wish.getEndTime().format(DATE_FORMATTER))
-                    .append(" ").append(wish.getEndTime().format(TIME_FORMATTER));
+            sb.append(' ');
+            RecordCodec.appendDateTime(sb, wish.getStartTime()).append(' ');
+            RecordCodec.appendDateTime(sb, wish.getEndTime());
         }
 
         if (wish.isApproved()) {